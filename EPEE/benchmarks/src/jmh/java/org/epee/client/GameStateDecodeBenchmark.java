@@ -0,0 +1,94 @@
+package org.epee.client;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 클라가 state 1건을 GameState 로 만드는 비용: JSON(readTree + treeToValue, 이전 경로),
+ * JSON type 확인 + ObjectReader 바인딩 (현재 경로), JSON 직접 readValue, 바이너리 STATE / STATE_DELTA.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GameStateDecodeBenchmark {
+
+    private static final String JSON = "{\"room\":\"room-1\","
+            + "\"p1\":{\"id\":\"p1\",\"nickname\":\"alice\",\"x\":312.5,\"y\":400.0,\"facingRight\":true,\"attacking\":false},"
+            + "\"p2\":{\"id\":\"p2\",\"nickname\":\"bob\",\"x\":700.0,\"y\":400.0,\"facingRight\":false,\"attacking\":true},"
+            + "\"score1\":3,\"score2\":2,\"gameStartTime\":1700000000000}";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ServerMessageDecoder decoder = new ServerMessageDecoder(mapper);
+    private final WireSnapshot base = new WireSnapshot();
+    private final WireSnapshot cur = new WireSnapshot();
+    private ByteBuffer full;
+    private ByteBuffer delta;
+
+    @Setup
+    public void setup() {
+        // 서버 WireSnapshot.writeFull / writeDelta 와 같은 레이아웃
+        full = ByteBuffer.allocate(43);
+        full.put(WireFormat.OP_STATE).putInt(100)
+                .putShort((short) 3).putShort((short) 2).putLong(1_700_000_000_000L)
+                .put((byte) (WireFormat.F_PRESENT | WireFormat.F_FACING_RIGHT)).putFloat(312.5f).putFloat(400f).putInt(55)
+                .put((byte) (WireFormat.F_PRESENT | WireFormat.F_ATTACKING)).putFloat(700f).putFloat(400f).putInt(60);
+        full.flip();
+
+        delta = ByteBuffer.allocate(19);
+        delta.put(WireFormat.OP_STATE_DELTA).putInt(101).putInt(100)
+                .putShort((short) (WireSnapshot.D_P1_X | WireSnapshot.D_P1_SEQ))
+                .putFloat(315f).putInt(56);
+        delta.flip();
+
+        full.get();
+        base.readFull(full);
+    }
+
+    @Benchmark
+    public GameState jsonTree() throws Exception {
+        JsonNode node = mapper.readTree(JSON);
+        if (!node.hasNonNull("room")) return null; // 실제 클라도 type 분기 먼저 봄
+        return mapper.treeToValue(node, GameState.class);
+    }
+
+    @Benchmark
+    public GameState jsonStreaming() throws Exception {
+        if (decoder.typeOf(JSON) != ServerMessageDecoder.Type.STATE) return null;
+        return decoder.state(JSON);
+    }
+
+    @Benchmark
+    public GameState jsonDirect() throws Exception {
+        return mapper.readValue(JSON, GameState.class);
+    }
+
+    @Benchmark
+    public GameState binaryFull() {
+        full.rewind();
+        full.get();
+        cur.readFull(full);
+        return cur.toGameState("room-1", "alice", "bob");
+    }
+
+    @Benchmark
+    public GameState binaryDelta() {
+        delta.rewind();
+        delta.get();
+        int seq = delta.getInt();
+        delta.getInt(); // base
+        int mask = delta.getShort() & 0xFFFF;
+        cur.applyDelta(seq, base, mask, delta);
+        return cur.toGameState("room-1", "alice", "bob");
+    }
+}
@@ -0,0 +1,39 @@
+package org.epee.server;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.java_websocket.WebSocket;
+
+/** 벤치마크용 가짜 소켓 (전송은 GameServer.broadcast 를 오버라이드해서 버림) */
+final class BenchSockets {
+
+    private static final AtomicInteger IDS = new AtomicInteger();
+
+    private BenchSockets() {}
+
+    static WebSocket socket() {
+        String name = "bench-" + IDS.incrementAndGet();
+        return (WebSocket) Proxy.newProxyInstance(BenchSockets.class.getClassLoader(),
+                new Class<?>[] { WebSocket.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> name;
+                    case "isOpen" -> true;
+                    default -> null;
+                });
+    }
+
+    /** 2인 방 하나 (p1/p2 자리 + 멤버 등록) */
+    static GameServer.RoomState room(String name) {
+        GameServer.RoomState r = new GameServer.RoomState(name);
+        WebSocket a = socket();
+        WebSocket b = socket();
+        r.p1.occupy(a, "alice");
+        r.p2.occupy(b, "bob");
+        r.members.add(a);
+        r.members.add(b);
+        return r;
+    }
+}
@@ -0,0 +1,95 @@
+package org.epee.server;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.java_websocket.WebSocket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * broadcastState: 스냅샷 캡처 + 그룹별 인코딩 + fan-out (전송은 Blackhole 로 버림).
+ * wire=json 은 JSON 클라만, binary 는 ack 가 따라오는 bin1 클라 (델타 경로).
+ *
+ * broadcastOneRoom: rooms 개 방 (소켓 rooms x 2 개가 서버 전역 binaryWire / ackedSnapshot 에 등록된 상태) 중
+ * 방 1개만 브로드캐스트하는 비용. 방 수가 늘어도 평평해야 함 (예전엔 전체 연결을 훑어서 O(연결 수)).
+ * broadcastAllRooms: 레인 한 틱에 모든 방을 보내는 총 비용 (방 수에 비례하는 게 정상, 처리량 확인용).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BroadcastBenchmark {
+
+    @Param({ "1", "100", "1000", "10000" })
+    public int rooms;
+
+    @Param({ "json", "binary" })
+    public String wire;
+
+    private GameServer server;
+    private SnapshotFanOut fanOut;
+    private GameServer.RoomState[] state;
+    private boolean binary;
+    private int tick;
+    private GameServer.RoomState one; // broadcastOneRoom 대상 (가운데 방, 다른 방들은 등록만)
+
+    @Setup
+    public void setup(Blackhole bh) {
+        server = new GameServer(0, GameServer.DEFAULT_TICK_RATE, 1) {
+            @Override
+            public void broadcast(String text, Collection<WebSocket> clients) {
+                bh.consume(text);
+                bh.consume(clients.size());
+            }
+
+            @Override
+            public void broadcast(ByteBuffer bytes, Collection<WebSocket> clients) {
+                bh.consume(bytes.remaining());
+                bh.consume(clients.size());
+            }
+        };
+        fanOut = new SnapshotFanOut(server);
+        binary = "binary".equals(wire);
+
+        state = new GameServer.RoomState[rooms];
+        for (int i = 0; i < rooms; i++) {
+            GameServer.RoomState r = BenchSockets.room("room-" + i);
+            if (binary) {
+                server.binaryWire.addAll(r.members);
+                for (WebSocket conn : r.members) server.ackedSnapshot.put(conn, new GameServer.AckState());
+            }
+            state[i] = r;
+        }
+        one = state[rooms / 2];
+    }
+
+    @Benchmark
+    public void broadcastOneRoom() {
+        tick++;
+        broadcast(one);
+    }
+
+    @Benchmark
+    public void broadcastAllRooms() {
+        tick++;
+        for (GameServer.RoomState r : state) broadcast(r);
+    }
+
+    private void broadcast(GameServer.RoomState r) {
+        r.p1.x = 100 + (tick & 63); // 매 틱 한 필드씩 바뀌는 흔한 경우
+        server.broadcastState(r, fanOut);
+
+        // 클라가 방금 받은 스냅샷을 ack 했다고 가정 -> 다음 틱은 델타
+        if (binary) {
+            for (WebSocket conn : r.members) server.ackedSnapshot.get(conn).update(r.snapshotSeq, server.getClock().nanos());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.epee.server;
+
+import java.util.concurrent.TimeUnit;
+
+import org.epee.common.FencingRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 판정 함수들: bladeOffset / hit / checkHitWithPriority.
+ * rooms 개수만큼 방을 돌면서 한 틱 분량의 판정을 하는 비용 (공격 중인 방 비율 고정 50%).
+ * 위치 기록은 꽉 채우고 공격자 RTT 는 80ms 로 둬서 렉 보정 되감기(링 탐색 + 보간)까지 포함.
+ * 판정은 연속 판정이라 직전 틱 (16ms 전) 부터 now 까지 훑음 (checkHitWithPriority 는 판정 시각을 옮기므로 매번 되돌림).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HitDetectionBenchmark {
+
+    @Param({ "1", "100", "10000" })
+    public int rooms;
+
+    private GameServer.RoomState[] state;
+    private long now;
+    private long lastTick;
+
+    @Setup
+    public void setup() {
+        now = TimeUnit.SECONDS.toNanos(1); // 규칙 시각은 Clock ns
+        lastTick = now - TimeUnit.MILLISECONDS.toNanos(16);
+        state = new GameServer.RoomState[rooms];
+        for (int i = 0; i < rooms; i++) {
+            GameServer.RoomState r = BenchSockets.room("room-" + i);
+            // 서로 닿지 않는 거리 (득점/리스폰이 측정을 바꾸지 않도록)
+            r.p1.x = 300;
+            r.p2.x = 600;
+            r.p1.rttMs = 80;
+            for (int t = PositionHistory.SIZE; t > 0; t--) r.positions.record(now - t * TimeUnit.MILLISECONDS.toNanos(16), r.p1, r.p2);
+            if (i % 2 == 0) {
+                r.p1.attackStart = now - TimeUnit.MILLISECONDS.toNanos(50);
+                r.p1.attacking = true;
+            }
+            r.p1.hitCheckedTo = lastTick;
+            state[i] = r;
+        }
+    }
+
+    @Benchmark
+    public double bladeOffset() {
+        double sum = 0;
+        for (int t = 0; t < 250; t += 10) sum += FencingRules.bladeOffset(now + TimeUnit.MILLISECONDS.toNanos(t), now);
+        return sum;
+    }
+
+    @Benchmark
+    public boolean hit() {
+        GameServer.RoomState r = state[0];
+        return GameServer.hit(r, r.p1, r.p2, now);
+    }
+
+    @Benchmark
+    public int checkHitWithPriorityAllRooms() {
+        int scored = 0;
+        for (GameServer.RoomState r : state) {
+            r.p1.hitCheckedTo = lastTick;
+            GameServer.checkHitWithPriority(r, now);
+            scored += r.score1 + r.score2;
+        }
+        return scored;
+    }
+}
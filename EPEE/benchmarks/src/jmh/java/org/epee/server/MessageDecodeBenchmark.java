@@ -0,0 +1,64 @@
+package org.epee.server;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 클라 JSON 메시지 디코딩: 스트리밍 MessageDecoder vs 예전 방식(Map 으로 통째 파싱).
+ * 메시지 모양은 클라 Msg 레코드 직렬화 결과 그대로.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageDecodeBenchmark {
+
+    @Param({ "move", "attack", "join", "chat" })
+    public String type;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final InboundMessage reuse = new InboundMessage();
+    private String json;
+
+    @Setup
+    public void setup() {
+        json = switch (type) {
+            case "move" -> "{\"type\":\"move\",\"room\":\"room-1\",\"playerId\":\"p1\",\"nickname\":\"alice\","
+                    + "\"x\":312.5,\"y\":400.0,\"facingRight\":true,\"attacking\":false,\"chat\":null,\"seq\":1234}";
+            case "attack" -> "{\"type\":\"attack\",\"room\":\"room-1\",\"playerId\":\"p1\",\"nickname\":\"alice\","
+                    + "\"x\":312.5,\"y\":400.0,\"facingRight\":true,\"attacking\":true,\"chat\":null,\"seq\":1235}";
+            case "join" -> "{\"type\":\"join\",\"room\":\"room-1\",\"playerId\":null,\"nickname\":\"alice\","
+                    + "\"x\":0.0,\"y\":0.0,\"facingRight\":false,\"attacking\":false,\"chat\":null,\"seq\":0}";
+            case "chat" -> "{\"type\":\"chat\",\"room\":\"room-1\",\"playerId\":\"p1\",\"nickname\":\"alice\","
+                    + "\"x\":0.0,\"y\":0.0,\"facingRight\":false,\"attacking\":false,\"chat\":\"good game!\",\"seq\":0}";
+            default -> throw new IllegalArgumentException(type);
+        };
+    }
+
+    @Benchmark
+    public InboundMessage streaming() throws Exception {
+        MessageDecoder.decode(json, reuse);
+        return reuse;
+    }
+
+    // ✅ user-006 이전: readValue(Map) + 박싱된 값 꺼내기
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public double mapBaseline() throws Exception {
+        Map<String, Object> map = mapper.readValue(json, Map.class);
+        String t = (String) map.get("type");
+        double x = map.get("x") instanceof Number n ? n.doubleValue() : 0;
+        int seq = map.get("seq") instanceof Number n ? n.intValue() : 0;
+        return t.length() + x + seq;
+    }
+}
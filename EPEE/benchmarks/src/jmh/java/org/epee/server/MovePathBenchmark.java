@@ -0,0 +1,75 @@
+package org.epee.server;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.java_websocket.WebSocket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 레인 스레드 한 틱: 방마다 movesPerTick 개 입력 적용 + 판정 + 스냅샷 (bin1 클라).
+ * -Pjmh.profilers=gc 로 돌리면 gc.alloc.rate.norm / (rooms * movesPerTick) 가 move 1건당 할당량.
+ * 목표: 정상 상태 move 는 0 B (입력 1건당 inbox 명령 객체는 소켓 스레드 쪽이라 여기 포함 안 됨).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MovePathBenchmark {
+
+    @Param({ "1", "100", "10000" })
+    public int rooms;
+
+    @Param({ "1", "4", "16" })
+    public int movesPerTick;
+
+    private GameServer server;
+    private SnapshotFanOut fanOut;
+    private GameServer.RoomState[] state;
+    private int seq;
+    private long now = TimeUnit.SECONDS.toNanos(1); // 규칙 시각은 Clock ns
+
+    @Setup
+    public void setup(Blackhole bh) {
+        server = new GameServer(0, GameServer.DEFAULT_TICK_RATE, 1) {
+            @Override
+            public void broadcast(String text, Collection<WebSocket> clients) {
+                bh.consume(text);
+            }
+
+            @Override
+            public void broadcast(ByteBuffer bytes, Collection<WebSocket> clients) {
+                bh.consume(bytes.remaining());
+            }
+        };
+        fanOut = new SnapshotFanOut(server);
+
+        state = new GameServer.RoomState[rooms];
+        for (int i = 0; i < rooms; i++) {
+            GameServer.RoomState r = BenchSockets.room("room-" + i);
+            server.binaryWire.addAll(r.members);
+            state[i] = r;
+        }
+    }
+
+    @Benchmark
+    public void tick() {
+        now += TimeUnit.MILLISECONDS.toNanos(16);
+        for (GameServer.RoomState r : state) {
+            for (int m = 0; m < movesPerTick; m++) {
+                seq++;
+                double x = 100 + (seq & 127);
+                GameServer.applyMove(r, r.p1, seq, x, 400, true, false, now);
+            }
+            server.tick(r, now, fanOut);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.epee.client;
+
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+import javafx.scene.text.TextFlow;
+
+/**
+ * 채팅 ListView 셀. 줄 종류별 노드 묶음을 셀마다 한 번만 만들고, 스크롤/추가 때는 글자/스타일만 바꿔 끼운다.
+ * (메시지마다 HBox/VBox/Label/TextFlow 를 새로 붙이던 것 대체)
+ */
+final class ChatCell extends ListCell<ChatLine> {
+
+    private static final Color SYSTEM_TEXT = Color.web("#888888");
+
+    // SYSTEM
+    private final Label sysLabel = new Label();
+    private final HBox sysRow = new HBox(sysLabel);
+
+    // HIGHLIGHT
+    private final Text hlPrefix = new Text();
+    private final Text hlName = new Text();
+    private final Text hlSuffix = new Text();
+    private final HBox hlRow;
+
+    // CHAT
+    private final Label nameLabel = new Label();
+    private final Label timeLabel = new Label();
+    private final Label msgLabel = new Label();
+    private final HBox contentRow = new HBox(5); // 말풍선과 시간 사이 간격
+    private final VBox msgContainer = new VBox(2, nameLabel, contentRow);
+    private final HBox chatRow = new HBox(msgContainer);
+
+    ChatCell() {
+        getStyleClass().add("chat-cell");
+
+        sysLabel.getStyleClass().add("system-msg");
+        sysLabel.setWrapText(true);
+        sysLabel.setMaxWidth(240);
+        sysLabel.setAlignment(Pos.CENTER);
+        sysRow.setAlignment(Pos.CENTER);
+
+        hlPrefix.setFill(SYSTEM_TEXT); // 기본 시스템 텍스트 색상
+        hlSuffix.setFill(SYSTEM_TEXT);
+        TextFlow flow = new TextFlow(hlPrefix, hlName, hlSuffix);
+        flow.getStyleClass().add("system-msg-flow");
+        flow.setTextAlignment(TextAlignment.CENTER);
+        flow.setMaxWidth(240);
+        VBox hlContainer = new VBox(flow);
+        hlContainer.getStyleClass().add("system-msg");
+        hlContainer.setMaxWidth(240);
+        hlContainer.setAlignment(Pos.CENTER);
+        hlRow = new HBox(hlContainer);
+        hlRow.setAlignment(Pos.CENTER);
+
+        nameLabel.getStyleClass().add("chat-name");
+        timeLabel.getStyleClass().add("chat-time");
+        timeLabel.setStyle("-fx-font-size: 10px; -fx-text-fill: #888888; -fx-padding: 0 5 2 5;"); // 하단 패딩 정렬
+        msgLabel.setWrapText(true);
+        msgLabel.setMaxWidth(200);
+        msgLabel.getStyleClass().add("chat-bubble");
+    }
+
+    @Override
+    protected void updateItem(ChatLine line, boolean empty) {
+        super.updateItem(line, empty);
+        setText(null);
+        if (empty || line == null) {
+            setGraphic(null);
+            return;
+        }
+
+        switch (line.kind()) {
+            case SYSTEM -> {
+                sysLabel.setText(line.text());
+                setGraphic(sysRow);
+            }
+            case HIGHLIGHT -> {
+                String size = "-fx-font-size: 10px;"; // 작게
+                hlPrefix.setText(line.prefix());
+                hlPrefix.setStyle(size);
+                hlName.setText(line.highlight());
+                hlName.setFill(line.highlightColor());
+                hlName.setStyle(line.bold() ? size + " -fx-font-weight: bold;" : size + " -fx-font-weight: normal;");
+                hlSuffix.setText(line.suffix());
+                hlSuffix.setStyle(size);
+                setGraphic(hlRow);
+            }
+            case CHAT -> {
+                nameLabel.setText(line.sender());
+                timeLabel.setText(line.time());
+                msgLabel.setText(line.text());
+
+                msgLabel.getStyleClass().removeAll("chat-bubble-me", "chat-bubble-other");
+                if (line.mine()) {
+                    // 내 메시지: 노란 말풍선, [시간] [말풍선] 우측 정렬
+                    msgLabel.getStyleClass().add("chat-bubble-me");
+                    contentRow.getChildren().setAll(timeLabel, msgLabel);
+                    contentRow.setAlignment(Pos.BOTTOM_RIGHT);
+                    msgContainer.setAlignment(Pos.TOP_RIGHT);
+                    chatRow.setAlignment(Pos.CENTER_RIGHT);
+                } else {
+                    // 상대방 메시지: 어두운 말풍선, [말풍선] [시간] 좌측 정렬
+                    msgLabel.getStyleClass().add("chat-bubble-other");
+                    contentRow.getChildren().setAll(msgLabel, timeLabel);
+                    contentRow.setAlignment(Pos.BOTTOM_LEFT);
+                    msgContainer.setAlignment(Pos.TOP_LEFT);
+                    chatRow.setAlignment(Pos.CENTER_LEFT);
+                }
+                setGraphic(chatRow);
+            }
+        }
+    }
+}
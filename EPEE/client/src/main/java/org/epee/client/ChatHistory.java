@@ -0,0 +1,70 @@
+package org.epee.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.collections.ObservableListBase;
+
+/**
+ * 최근 capacity 줄만 보관하는 링 버퍼 ObservableList (FX 스레드 전용).
+ * 꽉 차면 가장 오래된 줄을 버리므로 긴 경기에서도 메모리/ListView 항목 수가 일정하다.
+ * appendAll 1번 = 변경 이벤트 1번 (앞쪽 제거 + 뒤쪽 추가).
+ */
+final class ChatHistory extends ObservableListBase<ChatLine> {
+
+    private final ChatLine[] ring;
+    private int start = 0; // 가장 오래된 줄 위치
+    private int size = 0;
+
+    ChatHistory(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.ring = new ChatLine[capacity];
+    }
+
+    int capacity() {
+        return ring.length;
+    }
+
+    @Override
+    public ChatLine get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return ring[(start + index) % ring.length];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    void appendAll(List<ChatLine> lines) {
+        if (lines.isEmpty()) return;
+
+        // 한 번에 capacity 보다 많이 오면 마지막 capacity 줄만
+        int from = Math.max(0, lines.size() - ring.length);
+        int adding = lines.size() - from;
+        int evict = Math.max(0, size + adding - ring.length);
+
+        beginChange();
+        try {
+            if (evict > 0) {
+                List<ChatLine> removed = new ArrayList<>(evict);
+                for (int i = 0; i < evict; i++) {
+                    removed.add(ring[start]);
+                    ring[start] = null;
+                    start = (start + 1) % ring.length;
+                }
+                size -= evict;
+                nextRemove(0, removed);
+            }
+
+            int addFrom = size;
+            for (int i = from; i < lines.size(); i++) {
+                ring[(start + size) % ring.length] = lines.get(i);
+                size++;
+            }
+            nextAdd(addFrom, size);
+        } finally {
+            endChange();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.epee.client;
+
+import javafx.scene.paint.Color;
+
+/**
+ * 채팅창 한 줄 (노드가 아니라 데이터만). ListView 셀이 이 값을 받아 재사용 노드에 채워서 그린다.
+ * SYSTEM = 가운데 한 줄, HIGHLIGHT = prefix + 색 강조 + suffix, CHAT = 이름/말풍선/시간.
+ */
+record ChatLine(Kind kind, String sender, String text, String time, boolean mine,
+        String prefix, String highlight, String suffix, Color highlightColor, boolean bold) {
+
+    enum Kind { SYSTEM, HIGHLIGHT, CHAT }
+
+    static ChatLine system(String text) {
+        return new ChatLine(Kind.SYSTEM, null, text, null, false, null, null, null, null, false);
+    }
+
+    static ChatLine highlight(String prefix, String highlight, String suffix, Color color, boolean bold) {
+        return new ChatLine(Kind.HIGHLIGHT, null, null, null, false,
+                prefix == null ? "" : prefix,
+                highlight == null ? "Unknown" : highlight,
+                suffix == null ? "" : suffix,
+                color, bold);
+    }
+
+    static ChatLine chat(String sender, String text, String time, boolean mine) {
+        return new ChatLine(Kind.CHAT, sender, text, time, mine, null, null, null, null, false);
+    }
+}
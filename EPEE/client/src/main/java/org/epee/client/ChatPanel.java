@@ -3,41 +3,63 @@ package org.epee.client;
 import javafx.geometry.Insets;
 import javafx.scene.control.Button;
 
+import javafx.scene.control.Control;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.application.Platform;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import javafx.scene.control.Label;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ChatPanel {
+
+    // ✅ 보관할 최대 줄 수 (-Depee.chatHistory=N 으로 변경), 넘치면 오래된 줄부터 버림
+    static final int DEFAULT_HISTORY = Integer.getInteger("epee.chatHistory", 200);
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
     private VBox root;
-    private javafx.scene.control.ScrollPane scrollPane;
-    private VBox chatBox;
+    private final ChatHistory history;
+    private final ListView<ChatLine> listView;
     private TextField input;
     private final FencingClientApp app;
 
+    // ✅ 어느 스레드에서든 쌓고, 펄스당 runLater 1번으로 모아서 반영 (메시지마다 runLater 안 함)
+    private final ConcurrentLinkedQueue<ChatLine> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final List<ChatLine> batch = new ArrayList<>(); // FX 스레드 전용
+
     public ChatPanel(FencingClientApp app) {
+        this(app, DEFAULT_HISTORY);
+    }
+
+    public ChatPanel(FencingClientApp app, int historyLimit) {
         this.app = app;
+        this.history = new ChatHistory(historyLimit);
 
         root = new VBox(10);
         root.setPadding(new Insets(10));
         root.setPrefWidth(260);
         root.getStyleClass().add("chat-root");
 
-        // ★ 채팅창 생성 (Rich Text 지원을 위해 VBox + ScrollPane 사용)
-        chatBox = new VBox(5);
-        chatBox.getStyleClass().add("chat-content");
-        chatBox.setFillWidth(true);
-
-        scrollPane = new javafx.scene.control.ScrollPane(chatBox);
-        scrollPane.setFitToWidth(true);
-        // scrollPane.setPrefHeight(430); // 고정 높이 제거
-        VBox.setVgrow(scrollPane, javafx.scene.layout.Priority.ALWAYS); // 가용 공간 채우기
-        scrollPane.getStyleClass().add("chat-scroll");
-        scrollPane.setHbarPolicy(javafx.scene.control.ScrollPane.ScrollBarPolicy.NEVER);
-        scrollPane.setVbarPolicy(javafx.scene.control.ScrollPane.ScrollBarPolicy.AS_NEEDED);
+        // ★ 채팅창: 보이는 줄만 셀로 만들고 스크롤 시 재사용 (ListView 가상화)
+        listView = new ListView<>(history);
+        listView.getStyleClass().add("chat-list");
+        listView.setFocusTraversable(false);
+        listView.setCellFactory(v -> {
+            ListCell<ChatLine> cell = new ChatCell();
+            // 가로 스크롤 안 생기도록 셀 폭을 리스트 폭에 맞춤 (세로 스크롤바 자리 제외)
+            cell.prefWidthProperty().bind(v.widthProperty().subtract(20));
+            cell.setMaxWidth(Control.USE_PREF_SIZE);
+            return cell;
+        });
+        VBox.setVgrow(listView, javafx.scene.layout.Priority.ALWAYS); // 가용 공간 채우기
 
         input = new TextField();
         input.setPromptText("메시지 입력...");
@@ -57,7 +79,7 @@ public class ChatPanel {
         input.setMaxWidth(Double.MAX_VALUE);
         HBox.setHgrow(input, javafx.scene.layout.Priority.ALWAYS);
 
-        root.getChildren().addAll(scrollPane, row);
+        root.getChildren().addAll(listView, row);
     }
 
     private void sendMessage() {
@@ -75,34 +97,7 @@ public class ChatPanel {
     }
 
     public void addSystemMessage(String prefix, String highlight, String suffix) {
-        Platform.runLater(() -> {
-            VBox messageContainer = new VBox(2);
-            HBox row = new HBox();
-
-            javafx.scene.text.TextFlow flow = new javafx.scene.text.TextFlow();
-            flow.getStyleClass().add("system-msg");
-            flow.setMaxWidth(240);
-            flow.setTextAlignment(javafx.scene.text.TextAlignment.CENTER);
-
-            javafx.scene.text.Text txtPrefix = new javafx.scene.text.Text(prefix);
-            txtPrefix.setFill(javafx.scene.paint.Color.web("#888888")); // 시스템 텍스트 색상
-
-            javafx.scene.text.Text txtHighlight = new javafx.scene.text.Text(highlight);
-            txtHighlight.setFill(getColorForNickname(highlight));
-            txtHighlight.setStyle("-fx-font-weight: bold;");
-
-            javafx.scene.text.Text txtSuffix = new javafx.scene.text.Text(suffix);
-            txtSuffix.setFill(javafx.scene.paint.Color.web("#888888")); // 시스템 텍스트 색상
-
-            flow.getChildren().addAll(txtPrefix, txtHighlight, txtSuffix);
-
-            row.getChildren().add(flow);
-            row.setAlignment(javafx.geometry.Pos.CENTER);
-            chatBox.getChildren().add(row);
-
-            scrollPane.layout();
-            scrollPane.setVvalue(1.0);
-        });
+        post(ChatLine.highlight(prefix, highlight, suffix, getColorForNickname(highlight), true));
     }
 
     private javafx.scene.paint.Color getColorForNickname(String name) {
@@ -113,120 +108,45 @@ public class ChatPanel {
         return javafx.scene.paint.Color.rgb(r, g, b).brighter(); // 어두운 배경에서 잘 보이도록 밝게 조정
     }
 
+    /** 어느 스레드에서 불러도 됨 */
     public void appendMessage(String senderId, String senderName, String msg) {
         final String finalSenderId = (senderId == null) ? "Unknown" : senderId;
 
-        Platform.runLater(() -> {
-            // 시스템 메시지 처리
-            if ("System".equals(finalSenderId)) {
-                HBox row = new HBox();
-                Label sysLabel = new Label(msg);
-                sysLabel.getStyleClass().add("system-msg");
-                sysLabel.setWrapText(true);
-                sysLabel.setMaxWidth(240);
-                sysLabel.setAlignment(javafx.geometry.Pos.CENTER);
-
-                row.getChildren().add(sysLabel);
-                row.setAlignment(javafx.geometry.Pos.CENTER);
-                chatBox.getChildren().add(row);
-
-                scrollPane.layout();
-                scrollPane.setVvalue(1.0);
-                return;
-            }
-
-            // 일반 채팅
-            boolean isMe = finalSenderId.equals(app.getPlayerId());
-            String timeStr = LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm"));
-
-            VBox msgContainer = new VBox(2);
-
-            // 이름 라벨 (헤더)
-            Label nameLabel = new Label(senderName);
-            nameLabel.getStyleClass().add("chat-name");
-
-            // 시간 라벨
-            Label timeLabel = new Label(timeStr);
-            timeLabel.getStyleClass().add("chat-time");
-            timeLabel.setStyle("-fx-font-size: 10px; -fx-text-fill: #888888; -fx-padding: 0 5 2 5;"); // 하단 패딩 정렬
-
-            // 메시지 말풍선
-            Label msgLabel = new Label(msg);
-            msgLabel.setWrapText(true);
-            msgLabel.setMaxWidth(200);
-            msgLabel.getStyleClass().add("chat-bubble");
-
-            HBox contentRow = new HBox(5); // 말풍선과 시간 사이 간격
-            contentRow.setAlignment(javafx.geometry.Pos.BOTTOM_LEFT); // 기본 하단 정렬
-
-            if (isMe) {
-                // 내 메시지: 노란 말풍선, 검은 텍스트
-                msgLabel.getStyleClass().add("chat-bubble-me");
-                // 레이아웃: [시간] [말풍선] (우측 정렬)
-                contentRow.getChildren().addAll(timeLabel, msgLabel);
-                contentRow.setAlignment(javafx.geometry.Pos.BOTTOM_RIGHT);
-
-                msgContainer.getChildren().addAll(nameLabel, contentRow);
-                msgContainer.setAlignment(javafx.geometry.Pos.TOP_RIGHT);
-            } else {
-                // 상대방 메시지: 어두운 말풍선, 흰 텍스트
-                msgLabel.getStyleClass().add("chat-bubble-other");
-                // 레이아웃: [말풍선] [시간] (좌측 정렬)
-                contentRow.getChildren().addAll(msgLabel, timeLabel);
-                contentRow.setAlignment(javafx.geometry.Pos.BOTTOM_LEFT);
-
-                msgContainer.getChildren().addAll(nameLabel, contentRow);
-                msgContainer.setAlignment(javafx.geometry.Pos.TOP_LEFT);
-            }
-
-            HBox row = new HBox(msgContainer);
-            if (isMe) {
-                row.setAlignment(javafx.geometry.Pos.CENTER_RIGHT);
-            } else {
-                row.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
-            }
-
-            chatBox.getChildren().add(row);
-
-            scrollPane.layout();
-            scrollPane.setVvalue(1.0);
-        });
+        // 시스템 메시지 처리
+        if ("System".equals(finalSenderId)) {
+            post(ChatLine.system(msg));
+            return;
+        }
+
+        // 일반 채팅
+        boolean isMe = finalSenderId.equals(app.getPlayerId());
+        post(ChatLine.chat(senderName, msg, LocalTime.now().format(TIME_FORMAT), isMe));
     }
 
+    /** 어느 스레드에서 불러도 됨 */
     public void appendSystemMessageWithHighlight(String prefix, String highlight, String suffix, String colorHex) {
-        Platform.runLater(() -> {
-            HBox row = new HBox();
-            row.setAlignment(javafx.geometry.Pos.CENTER);
-
-            javafx.scene.text.TextFlow flow = new javafx.scene.text.TextFlow();
-            flow.getStyleClass().add("system-msg-flow");
-            flow.setTextAlignment(javafx.scene.text.TextAlignment.CENTER);
-            flow.setMaxWidth(240);
-
-            javafx.scene.text.Text text1 = new javafx.scene.text.Text(prefix == null ? "" : prefix);
-            text1.setFill(javafx.scene.paint.Color.web("#888888")); // 기본 시스템 텍스트 색상
-            text1.setStyle("-fx-font-size: 10px;"); // 작게
-
-            javafx.scene.text.Text text2 = new javafx.scene.text.Text(highlight == null ? "Unknown" : highlight);
-            text2.setFill(javafx.scene.paint.Color.web(colorHex));
-            text2.setStyle("-fx-font-size: 10px; -fx-font-weight: normal;"); // 작고 얇게 (보통 굵기)
-
-            javafx.scene.text.Text text3 = new javafx.scene.text.Text(suffix == null ? "" : suffix);
-            text3.setFill(javafx.scene.paint.Color.web("#888888"));
-            text3.setStyle("-fx-font-size: 10px;"); // 작게
-
-            flow.getChildren().addAll(text1, text2, text3);
-
-            VBox container = new VBox(flow);
-            container.getStyleClass().add("system-msg");
-            container.setMaxWidth(240);
-            container.setAlignment(javafx.geometry.Pos.CENTER);
-
-            row.getChildren().add(container);
-            chatBox.getChildren().add(row);
-            scrollPane.layout();
-            scrollPane.setVvalue(1.0);
-        });
+        post(ChatLine.highlight(prefix, highlight, suffix, javafx.scene.paint.Color.web(colorHex), false)); // 작고 얇게
+    }
+
+    private void post(ChatLine line) {
+        pending.add(line);
+        if (flushScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    // ✅ FX 스레드: 쌓인 줄을 한 번에 추가 (변경 이벤트 1번 + 맨 아래로 스크롤 1번)
+    private void flush() {
+        flushScheduled.set(false); // 먼저 내려야 이 사이에 들어온 줄도 다음 flush 가 처리
+        ChatLine line;
+        while ((line = pending.poll()) != null)
+            batch.add(line);
+        if (batch.isEmpty())
+            return;
+
+        history.appendAll(batch);
+        batch.clear();
+        listView.scrollTo(history.size() - 1);
     }
 
     public VBox getView() {
@@ -2,10 +2,12 @@ package org.epee.client;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import org.epee.common.FencingRules;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
 
@@ -23,7 +25,6 @@ import javafx.scene.layout.BorderPane;
 import javafx.scene.paint.Color;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
-import java.util.HashMap;
 import java.util.Map;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
@@ -46,33 +47,70 @@ public class FencingClientApp extends Application {
     private Canvas canvas;
     private GraphicsContext g;
 
-    private double x = 100;
-    private double y = 400;
+    private double x = FencingRules.P1_SPAWN_X;
+    private double y = FencingRules.SPAWN_Y;
     private boolean facingRight = true;
 
     private boolean attacking = false;
-    private double attackProgress = 0.0;
+    private long attackStart = FencingRules.NO_ATTACK; // AnimationTimer 와 같은 시계 (nanoTime)
     private double bladeOffset = 0.0;
 
     private final Set<KeyCode> pressedOnce = new HashSet<>();
 
     private GameState latestState;
-    private GameState previousState;
     private GameWebSocketClient wsClient;
     private final ObjectMapper mapper = new ObjectMapper();
-
-    private Image imgIdle;
-    private Image imgForward;
-    private Image imgAttack;
-    private Image imgBackground;
-
-    private Label lblScore1;
-    private Label lblScore2;
-    private Label lblName1;
-    private Label lblName2;
-
-    private final Map<String, Long> lastAttackTimeMap = new HashMap<>();
-    private final Map<String, Long> lastForwardTimeMap = new HashMap<>();
+    private final ServerMessageDecoder decoder = new ServerMessageDecoder(mapper);
+
+    // ✅ 서버가 assign 에서 bin1 을 확인해주면 move/attack/state 를 바이너리로 주고받음
+    private volatile boolean binaryWire = false;
+    private int inputSeq = 0; // move/attack 마다 +1 (서버가 순서대로 적용)
+
+    // ✅ 예측 보정: 보낸 입력 위치를 기억해뒀다가 서버가 돌려준 "마지막 처리 seq" 위치와 비교
+    private final PendingInputs pendingInputs = new PendingInputs();
+
+    // ✅ 상대는 수신 시각 기준 interpDelay 만큼 과거로 보간해서 그림 (내 캐릭터는 예측 위치)
+    private static final long DEFAULT_INTERP_DELAY_MS = 100; // assign 에 없으면 (구버전 서버)
+    private final SnapshotBuffer snapshotBuffer = new SnapshotBuffer();
+    private long interpDelayNanos = DEFAULT_INTERP_DELAY_MS * 1_000_000L;
+
+    // ✅ 프레임마다 채워서 그리는 자리별 모습 (렌더 루프에서 객체 생성 없음)
+    private final PlayerPose pose1 = new PlayerPose();
+    private final PlayerPose pose2 = new PlayerPose();
+
+    private static final Color P1_COLOR = Color.web("#00BFFF");
+    private static final Color P2_COLOR = Color.SALMON;
+    private static final Color BACKGROUND_COLOR = Color.web("#1A2332");
+    private static final long ANIMATION_NANOS = 200_000_000L; // 0.2초
+
+    private final FrameStats frameStats = FrameStats.ENABLED ? new FrameStats() : null;
+
+    // ✅ 입력 변화가 있을 때만 move 전송 + 가끔 하트비트
+    private static final double HEARTBEAT_INTERVAL = 0.25; // sec
+    private double sentX = Double.NaN;
+    private double sentY = Double.NaN;
+    private boolean sentFacingRight;
+    private boolean sentAttacking;
+    private double sinceLastSend = 0.0;
+    // 바이너리 state 에는 닉네임이 없어서 마지막 JSON state 의 닉네임을 보관
+    private volatile String nick1;
+    private volatile String nick2;
+
+    // ✅ 델타 적용용 최근 스냅샷 (서버 SNAPSHOT_HISTORY 와 같은 크기)
+    private static final int SNAPSHOT_HISTORY = 32;
+    private final WireSnapshot[] snapshots = new WireSnapshot[SNAPSHOT_HISTORY];
+    private volatile int lastAppliedSnapshot = 0; // 서버에 ack 로 돌려보냄
+
+    // ✅ 현재 캔버스 크기에 맞춰 미리 늘리고/뒤집어 둔 이미지 (크기 바뀔 때만 다시 만듦)
+    private SpriteCache sprites;
+
+    // 이번 프레임의 논리 좌표(900x500) -> 캔버스 픽셀 변환
+    private double viewScale = 1;
+    private double viewOffsetX = 0;
+    private double viewOffsetY = 0;
+
+    // ✅ 점수/이름이 바뀔 때만 라벨 갱신
+    private ScoreHud hud;
 
     private ChatPanel chatPanel;
     private Stage primaryStage;
@@ -91,14 +129,8 @@ public class FencingClientApp extends Application {
         this.nickname = nickname;
         this.roomName = roomName;
 
-        try {
-            imgIdle = new Image(getClass().getResourceAsStream("/fencing1.png"));
-            imgForward = new Image(getClass().getResourceAsStream("/fencing2.png"));
-            imgAttack = new Image(getClass().getResourceAsStream("/fencing3.png"));
-            imgBackground = new Image(getClass().getResourceAsStream("/background.png"));
-        } catch (Exception e) {
-            System.err.println("Failed to load images: " + e.getMessage());
-        }
+        if (sprites == null)
+            sprites = new SpriteCache(getClass());
 
         canvas = new Canvas();
         g = canvas.getGraphicsContext2D();
@@ -165,10 +197,10 @@ public class FencingClientApp extends Application {
         topBox.setPadding(new Insets(20));
         topBox.getStyleClass().add("scoreboard-container");
 
-        lblName1 = new Label("Player 1");
+        Label lblName1 = new Label("Player 1");
         lblName1.getStyleClass().add("player-name");
 
-        lblScore1 = new Label("0");
+        Label lblScore1 = new Label("0");
         lblScore1.getStyleClass().add("score-label");
         VBox box1 = new VBox(lblScore1);
         box1.getStyleClass().add("score-box");
@@ -176,15 +208,16 @@ public class FencingClientApp extends Application {
         Label vs = new Label("VS");
         vs.getStyleClass().add("vs-label");
 
-        lblScore2 = new Label("0");
+        Label lblScore2 = new Label("0");
         lblScore2.getStyleClass().add("score-label");
         VBox box2 = new VBox(lblScore2);
         box2.getStyleClass().add("score-box");
 
-        lblName2 = new Label("Player 2");
+        Label lblName2 = new Label("Player 2");
         lblName2.getStyleClass().add("player-name");
 
         topBox.getChildren().addAll(lblName1, box1, vs, box2, lblName2);
+        hud = new ScoreHud(lblName1, lblScore1, lblScore2, lblName2);
 
         // 라운드 정보는 추후 추가 가능
 
@@ -244,46 +277,40 @@ public class FencingClientApp extends Application {
 
             pressedOnce.add(code);
 
-            // === 이동 (A/D 1회당 30px) ===
+            // === 이동 (A/D 1회당 STEP, 서버와 같은 규칙) ===
             if (code == KeyCode.A) {
                 // facingRight = false; // 방향 전환 안함
-                x -= 30;
+                x = FencingRules.step(x, -1);
                 // P2 즉시 반응 (A가 전진)
                 if (playerId != null && "p2".equals(playerId)) {
-                    lastForwardTimeMap.put(playerId, System.currentTimeMillis());
+                    pose2.lastForward = System.nanoTime(); // AnimationTimer now 와 같은 시계
                 }
             }
             if (code == KeyCode.D) {
                 // facingRight = true; // 방향 전환 안함
-                x += 30;
+                x = FencingRules.step(x, 1);
                 // P1 즉시 반응 (D가 전진)
                 if (playerId != null && "p1".equals(playerId)) {
-                    lastForwardTimeMap.put(playerId, System.currentTimeMillis());
+                    pose1.lastForward = System.nanoTime();
                 }
             }
 
             // === 공격 ===
             if (code == KeyCode.J && !attacking) {
                 attacking = true;
-                attackProgress = 0.0;
+                attackStart = System.nanoTime();
                 attackAttempts++;
 
-                sendMsg(new Msg("attack", roomName, playerId, nickname, x, y, facingRight, true, null));
+                sendAttack();
 
                 // 시스템 메시지: 공격 시도 (클라이언트 예측)
-                // 빗나갈 것으로 예상될 때만 표시 (단순 거리 체크)
-                // 리치 = 70, Y 차이 < 40
+                // 빗나갈 것으로 예상될 때만 표시: 찌르는 동안 칼끝이 훑는 구간에 상대가 없으면 빗나감
+                // ✅ 내 위치는 방금 입력까지 반영된 로컬 예측값, 판정 기준은 서버와 같은 FencingRules
                 boolean likelyHit = false;
                 if (latestState != null) {
-                    Player me = "p1".equals(playerId) ? latestState.p1() : latestState.p2();
                     Player other = "p1".equals(playerId) ? latestState.p2() : latestState.p1();
-
-                    if (me != null && other != null) {
-                        double reach = 70;
-                        double tip = me.facingRight() ? me.x() + reach : me.x() - reach;
-                        if (Math.abs(tip - other.x()) < 20 && Math.abs(me.y() - other.y()) < 40) {
-                            likelyHit = true;
-                        }
+                    if (other != null) {
+                        likelyHit = FencingRules.inReach(x, y, facingRight, other.x(), other.y());
                     }
                 }
 
@@ -317,8 +344,12 @@ public class FencingClientApp extends Application {
                 double dt = (now - lastTime) / 1e9;
                 lastTime = now;
 
-                update(dt);
-                render();
+                if (frameStats != null)
+                    frameStats.begin();
+                update(dt, now);
+                render(now);
+                if (frameStats != null)
+                    frameStats.end();
             }
         };
         loop.start();
@@ -346,146 +377,211 @@ public class FencingClientApp extends Application {
                 0, // y 좌표
                 false, // 방향
                 false, // 공격 상태
-                text));
+                text,
+                0)); // 입력 시퀀스 (채팅은 없음)
     }
 
-    private void update(double dt) {
+    private void update(double dt, long now) {
         if (roomName == null || playerId == null || gameOver)
             return;
 
-        x = Math.max(40, Math.min(860, x));
+        x = FencingRules.clampX(x);
 
         // ---- 찌르기 애니메이션 (내 캐릭터만) ----
         if (attacking) {
-            attackProgress += dt;
-
-            if (attackProgress < 0.1) {
-                bladeOffset = (attackProgress / 0.1) * 30;
-            } else if (attackProgress < 0.2) {
-                bladeOffset = (1 - ((attackProgress - 0.1) / 0.1)) * 30;
+            if (FencingRules.isAttacking(now, attackStart)) {
+                bladeOffset = FencingRules.bladeOffset(now, attackStart);
             } else {
                 attacking = false;
+                attackStart = FencingRules.NO_ATTACK;
                 bladeOffset = 0;
             }
         }
 
-        sendMsg(new Msg("move", roomName, playerId, nickname, x, y, facingRight, attacking, null));
+        // ---- 입력 전송: 바뀐 게 있을 때만 (키 입력, 공격 시작/끝) ----
+        sinceLastSend += dt;
+        boolean changed = x != sentX || y != sentY || facingRight != sentFacingRight || attacking != sentAttacking;
+
+        if (changed) {
+            sendMove();
+        } else if (sinceLastSend >= HEARTBEAT_INTERVAL) {
+            sendHeartbeat();
+        }
     }
 
-    // ... (입력 핸들러 설정)
+    private void sendMove() {
+        int seq = ++inputSeq;
+        pendingInputs.add(seq, x, y);
+        if (binaryWire) {
+            sendBinary(WireFormat.move(seq, lastAppliedSnapshot, x, y, facingRight, attacking));
+        } else {
+            sendMsg(new Msg("move", roomName, playerId, nickname, x, y, facingRight, attacking, null, seq));
+        }
 
-    // ... (Msg 레코드 정의)
-    public record Msg(String type, String room, String playerId, String nickname, double x, double y,
-            boolean facingRight, boolean attacking, String chat) {
+        sentX = x;
+        sentY = y;
+        sentFacingRight = facingRight;
+        sentAttacking = attacking;
+        sinceLastSend = 0.0;
     }
 
-    private void render() {
-        double w = canvas.getWidth();
-        double h = canvas.getHeight();
+    // ✅ 가만히 있을 때: 바이너리는 ack 만, JSON 은 마지막 상태를 다시 보냄 (연결 유지 + 서버 상태 보정)
+    private void sendHeartbeat() {
+        if (binaryWire) {
+            sendBinary(WireFormat.ack(lastAppliedSnapshot));
+            sinceLastSend = 0.0;
+        } else {
+            sendMove();
+        }
+    }
 
-        // 배경 그리기
-        if (imgBackground != null) {
-            g.drawImage(imgBackground, 0, 0, w, h);
+    private void sendAttack() {
+        int seq = ++inputSeq;
+        pendingInputs.add(seq, x, y); // 위치는 안 바뀌지만 seq 에코가 이 번호로 올 수 있음
+        if (binaryWire) {
+            sendBinary(WireFormat.attack(seq, lastAppliedSnapshot));
         } else {
-            g.setFill(Color.web("#1A2332"));
-            g.fillRect(0, 0, w, h);
+            sendMsg(new Msg("attack", roomName, playerId, nickname, x, y, facingRight, true, null, seq));
+        }
+    }
+
+    // ✅ 서버 위치 + (지금 위치 - 그 입력 보낼 때 위치) = 서버 위에 아직 처리 안 된 입력들을 다시 얹은 위치
+    //    예측이 맞았으면 차이 0 이라 아무것도 안 함. 어긋남(득점 리스폰/리스폰 락에 버려진 move 등)만 보정
+    private void reconcile(Player me) {
+        int acked = me.seq();
+        if (acked == 0) {
+            // 구버전 서버(에코 없음): 기존 강제 리셋 임계값
+            if (Math.abs(x - me.x()) + Math.abs(y - me.y()) > 50) {
+                x = me.x();
+                y = me.y();
+            }
+            return;
+        }
+        if (!pendingInputs.usable(acked))
+            return;
+
+        double dx;
+        double dy;
+        if (pendingInputs.has(acked)) {
+            dx = me.x() - pendingInputs.x(acked);
+            dy = me.y() - pendingInputs.y(acked);
+        } else {
+            // 기록이 밀려난 아주 오래된 에코: 서버 위치로
+            dx = me.x() - x;
+            dy = me.y() - y;
+        }
+
+        if (Math.abs(dx) + Math.abs(dy) > 0.5) { // 바이너리는 float 라 약간의 오차 허용
+            x += dx;
+            y += dy;
+            pendingInputs.reset(inputSeq); // 지금까지 보낸 입력은 보정 전 좌표 기준
         }
+    }
+
+    // ... (입력 핸들러 설정)
+
+    private void render(long now) {
+        double w = canvas.getWidth();
+        double h = canvas.getHeight();
 
         double logicalW = 900;
         double logicalH = 500;
 
-        double scale = Math.min(w / logicalW, h / logicalH);
-        double offsetX = (w - logicalW * scale) / 2;
-        double offsetY = (h - logicalH * scale) / 2;
+        viewScale = Math.min(w / logicalW, h / logicalH);
+        viewOffsetX = (w - logicalW * viewScale) / 2;
+        viewOffsetY = (h - logicalH * viewScale) / 2;
 
-        g.save();
-        g.translate(offsetX, offsetY);
-        g.scale(scale, scale);
+        // ✅ 크기가 바뀌고 잠깐 그대로일 때만 실제로 다시 만듦 (드래그 중에는 원본을 늘려 그림)
+        sprites.resize(w, h, viewScale, now);
+
+        // 배경 그리기 (자리 잡은 뒤에는 이미 캔버스 크기라 1:1)
+        Image background = sprites.background();
+        if (background != null) {
+            g.drawImage(background, 0, 0, w, h);
+        } else {
+            g.setFill(BACKGROUND_COLOR);
+            g.fillRect(0, 0, w, h);
+        }
 
         if (latestState != null) {
-            drawPlayer(latestState.p1(), previousState != null ? previousState.p1() : null, Color.web("#00BFFF")); // P1
-                                                                                                                   // 색상
-                                                                                                                   // 업데이트
-            drawPlayer(latestState.p2(), previousState != null ? previousState.p2() : null, Color.SALMON);
+            long renderTime = now - interpDelayNanos;
+            fillPose(pose1, latestState.p1(), true, renderTime);
+            fillPose(pose2, latestState.p2(), false, renderTime);
 
-            // JavaFX 스레드에서 UI 라벨 업데이트
-            Platform.runLater(() -> {
-                if (lblScore1 != null)
-                    lblScore1.setText(String.valueOf(latestState.score1()));
-                if (lblScore2 != null)
-                    lblScore2.setText(String.valueOf(latestState.score2()));
-
-                if (lblName1 != null && latestState.p1() != null)
-                    lblName1.setText(latestState.p1().nickname());
-                if (lblName2 != null && latestState.p2() != null)
-                    lblName2.setText(latestState.p2().nickname());
-            });
+            drawPlayer(pose1, P1_COLOR, now);
+            drawPlayer(pose2, P2_COLOR, now);
+
+            // ✅ 이미 FX 스레드 (AnimationTimer): 바뀐 값만 바로 반영
+            if (hud != null)
+                hud.update(latestState);
         }
+    }
 
-        g.restore();
+    // ✅ 내 캐릭터는 로컬 예측 위치 그대로, 상대는 버퍼에서 보간한 위치
+    private void fillPose(PlayerPose pose, Player server, boolean isP1, long renderTime) {
+        if (server == null) {
+            pose.present = false;
+            return;
+        }
+        if (server.id().equals(playerId)) {
+            pose.set(x, y, facingRight, attacking);
+        } else if (!snapshotBuffer.poseAt(renderTime, isP1, pose)) {
+            pose.set(server);
+        }
     }
 
-    private void drawPlayer(Player p, Player prevP, Color color) {
-        if (p == null)
+    private void drawPlayer(PlayerPose p, Color color, long now) {
+        if (!p.present)
             return;
 
+        // 발 위치 (캔버스 픽셀), 변환 스택 없이 직접 계산
+        double sx = viewOffsetX + p.x * viewScale;
+        double sy = viewOffsetY + p.y * viewScale;
+
         // 위치 표시기 그리기
         g.setFill(color);
-        g.fillOval(p.x() - 15, p.y() - 5, 30, 10);
+        g.fillOval(sx - 15 * viewScale, sy - 5 * viewScale, 30 * viewScale, 10 * viewScale);
 
-        if (imgIdle == null) {
+        if (!sprites.hasSprites()) {
             // 이미지 로드 실패 시 대체 처리
-            double w = 30;
-            double h = 50;
-            g.fillRect(p.x() - w / 2, p.y() - h, w, h);
+            double w = 30 * viewScale;
+            double h = 50 * viewScale;
+            g.fillRect(sx - w / 2, sy - h, w, h);
             return;
         }
 
-        // 이미지 결정
-        long now = System.currentTimeMillis();
-
-        // 상태 시간 업데이트
-        if (p.attacking()) {
-            lastAttackTimeMap.put(p.id(), now);
+        // 상태 시간 업데이트 (now = 이번 프레임 시각, ns)
+        if (p.attacking) {
+            p.lastAttack = now;
         }
 
-        if (prevP != null) {
-            boolean moved = Math.abs(p.x() - prevP.x()) > 0.1;
+        if (!Double.isNaN(p.drawnX)) {
+            boolean moved = Math.abs(p.x - p.drawnX) > 0.1;
             if (moved) {
-                boolean movingRight = p.x() > prevP.x();
-                boolean movingForward = (movingRight && p.facingRight()) || (!movingRight && !p.facingRight());
+                boolean movingRight = p.x > p.drawnX;
+                boolean movingForward = (movingRight && p.facingRight) || (!movingRight && !p.facingRight);
                 if (movingForward) {
-                    lastForwardTimeMap.put(p.id(), now);
+                    p.lastForward = now;
                 }
             }
         }
+        p.drawnX = p.x;
 
-        Image toDraw = imgIdle;
-        Long lastAttack = lastAttackTimeMap.get(p.id());
-        Long lastForward = lastForwardTimeMap.get(p.id());
+        SpriteCache.Sprite sprite = SpriteCache.Sprite.IDLE;
 
-        // 애니메이션 지속 시간 확인 (0.2초 = 200ms)
-        if (lastAttack != null && (now - lastAttack < 200)) {
-            toDraw = imgAttack;
-        } else if (lastForward != null && (now - lastForward < 200)) {
-            toDraw = imgForward;
+        // 애니메이션 지속 시간 확인 (0.2초)
+        if (p.lastAttack != PlayerPose.NEVER && now - p.lastAttack < ANIMATION_NANOS) {
+            sprite = SpriteCache.Sprite.ATTACK;
+        } else if (p.lastForward != PlayerPose.NEVER && now - p.lastForward < ANIMATION_NANOS) {
+            sprite = SpriteCache.Sprite.FORWARD;
         }
 
-        double imgH = 150; // 가시성을 위해 높이 조정
-        double ratio = toDraw.getWidth() / toDraw.getHeight();
-        double imgW = imgH * ratio;
-
-        // 이미지 그리기 (중앙 하단 정렬)
-        // 원본 이미지가 왼쪽을 보므로 facingRight일 때 반전 처리
-        if (p.facingRight()) {
-            g.save();
-            g.translate(p.x(), p.y());
-            g.scale(-1, 1);
-            g.drawImage(toDraw, -imgW / 2, -imgH, imgW, imgH);
-            g.restore();
-        } else {
-            g.drawImage(toDraw, p.x() - imgW / 2, p.y() - imgH, imgW, imgH);
-        }
+        // 이미지 그리기 (중앙 하단 정렬), 오른쪽 보는 버전은 캐시에서 미리 뒤집어 둔 것
+        //   현재 배율로 만들어 둔 것이면 크기가 같아서 1:1, 아직이면 원본을 이 크기로 늘림
+        Image toDraw = sprites.sprite(sprite, p.facingRight);
+        double spriteH = sprites.spriteHeight();
+        double spriteW = Math.round(toDraw.getWidth() * spriteH / toDraw.getHeight());
+        g.drawImage(toDraw, Math.round(sx - spriteW / 2), Math.round(sy - spriteH), spriteW, spriteH);
     }
 
     private boolean gameOver = false;
@@ -589,103 +685,109 @@ public class FencingClientApp extends Application {
         }
     }
 
-    private void onServerState(String json) {
-        try {
-            GameState state = mapper.readValue(json, GameState.class);
-            Platform.runLater(() -> {
-                // 점수 변화 확인 (공격 성공)
-                if (latestState != null) {
-                    if (state.score1() > latestState.score1()) {
-                        if (chatPanel != null) {
-                            Player scorer = state.p1();
-                            String name = scorer.nickname();
-                            if (name == null || name.isEmpty())
-                                name = scorer.id();
-                            String color = "p1".equals(scorer.id()) ? "#00BFFF" : "#FA8072"; // Brighter Blue
-                            chatPanel.appendSystemMessageWithHighlight("", name, " 공격 성공 +1", color);
-                        }
-                    }
-                    if (state.score2() > latestState.score2()) {
-                        if (chatPanel != null) {
-                            Player scorer = state.p2();
-                            String name = scorer.nickname();
-                            if (name == null || name.isEmpty())
-                                name = scorer.id();
-                            String color = "p1".equals(scorer.id()) ? "#00BFFF" : "#FA8072"; // Brighter Blue
-                            chatPanel.appendSystemMessageWithHighlight("", name, " 공격 성공 +1", color);
-                        }
-                    }
-                }
+    private void sendBinary(ByteBuffer frame) {
+        if (wsClient == null || !wsClient.isOpen())
+            return;
 
-                // 서버가 강제 리셋을 요청한 경우 위치 동기화 (큰 차이 발생 시)
-                Player myPlayer = null;
-                if (state.p1() != null && state.p1().id().equals(playerId)) {
-                    myPlayer = state.p1();
-                } else if (state.p2() != null && state.p2().id().equals(playerId)) {
-                    myPlayer = state.p2();
-                }
+        wsClient.send(frame);
+    }
+
+    // JSON state 는 닉네임을 담고 있으므로 바이너리 state 용으로 보관
+    private void onJsonState(GameState state) {
+        if (state.p1() != null)
+            nick1 = state.p1().nickname();
+        if (state.p2() != null)
+            nick2 = state.p2().nickname();
+        onServerState(state, System.nanoTime());
+    }
+
+    private void onServerState(GameState state, long receivedAt) {
+        Platform.runLater(() -> {
+            snapshotBuffer.add(receivedAt, state);
 
-                if (myPlayer != null) {
-                    double dist = Math.abs(x - myPlayer.x()) + Math.abs(y - myPlayer.y());
-                    if (dist > 50) { // 강제 리셋 임계값
-                        x = myPlayer.x();
-                        y = myPlayer.y();
-                        attacking = false; // 공격 상태도 초기화
+            // 점수 변화 확인 (공격 성공)
+            if (latestState != null) {
+                if (state.score1() > latestState.score1()) {
+                    if (chatPanel != null) {
+                        Player scorer = state.p1();
+                        String name = scorer.nickname();
+                        if (name == null || name.isEmpty())
+                            name = scorer.id();
+                        String color = "p1".equals(scorer.id()) ? "#00BFFF" : "#FA8072"; // Brighter Blue
+                        chatPanel.appendSystemMessageWithHighlight("", name, " 공격 성공 +1", color);
+                    }
+                }
+                if (state.score2() > latestState.score2()) {
+                    if (chatPanel != null) {
+                        Player scorer = state.p2();
+                        String name = scorer.nickname();
+                        if (name == null || name.isEmpty())
+                            name = scorer.id();
+                        String color = "p1".equals(scorer.id()) ? "#00BFFF" : "#FA8072"; // Brighter Blue
+                        chatPanel.appendSystemMessageWithHighlight("", name, " 공격 성공 +1", color);
                     }
                 }
+            }
 
-                previousState = latestState;
-                latestState = state;
+            // 서버 권한 위치에 내 미처리 입력을 다시 얹어서 보정 (임계값 스냅 대신)
+            Player myPlayer = null;
+            if (state.p1() != null && state.p1().id().equals(playerId)) {
+                myPlayer = state.p1();
+            } else if (state.p2() != null && state.p2().id().equals(playerId)) {
+                myPlayer = state.p2();
+            }
 
-                if (waitingRoomPanel != null &&
-                        root.getCenter() == waitingRoomPanel.getView() &&
-                        state.p2() != null) {
+            if (myPlayer != null) {
+                reconcile(myPlayer);
+            }
 
-                    // 게임 시작
-                    if (state.gameStartTime() > 0) {
-                        gameStartTime = state.gameStartTime();
-                    } else {
-                        gameStartTime = System.currentTimeMillis(); // 대체값
-                    }
-                    gameOver = false;
-                    attackAttempts = 0;
+            latestState = state;
 
-                    HBox scoreBoard = createScoreBoard();
-                    HBox bottomBar = createBottomBar();
-                    BorderPane uiOverlay = new BorderPane();
-                    uiOverlay.setTop(scoreBoard);
-                    uiOverlay.setBottom(bottomBar);
-                    uiOverlay.setPickOnBounds(false);
+            if (waitingRoomPanel != null &&
+                    root.getCenter() == waitingRoomPanel.getView() &&
+                    state.p2() != null) {
 
-                    StackPane mainStack = new StackPane(canvasContainer, uiOverlay);
+                // 게임 시작
+                if (state.gameStartTime() > 0) {
+                    gameStartTime = state.gameStartTime();
+                } else {
+                    gameStartTime = System.currentTimeMillis(); // 대체값
+                }
+                gameOver = false;
+                attackAttempts = 0;
 
-                    root.setCenter(mainStack);
-                    root.setRight(chatPanel.getView());
-                    primaryStage.setHeight(600); // 높이 조정
-                    canvas.requestFocus();
+                HBox scoreBoard = createScoreBoard();
+                HBox bottomBar = createBottomBar();
+                BorderPane uiOverlay = new BorderPane();
+                uiOverlay.setTop(scoreBoard);
+                uiOverlay.setBottom(bottomBar);
+                uiOverlay.setPickOnBounds(false);
 
-                    if (chatPanel != null) {
-                        chatPanel.appendMessage("System", "System", "[System] 플레이어가 입장했습니다. 게임을 시작합니다!");
-                    }
-                }
+                StackPane mainStack = new StackPane(canvasContainer, uiOverlay);
+
+                root.setCenter(mainStack);
+                root.setRight(chatPanel.getView());
+                primaryStage.setHeight(600); // 높이 조정
+                canvas.requestFocus();
 
-                // 게임 종료 확인
-                if (!gameOver && (state.score1() >= 5 || state.score2() >= 5)) {
-                    gameOver = true;
-                    // 승자 ID 결정
-                    String winnerId = (state.score1() >= 5) ? "p1" : "p2";
-                    String winnerName = (state.score1() >= 5) ? (state.p1() != null ? state.p1().nickname() : "p1")
-                            : (state.p2() != null ? state.p2().nickname() : "p2");
-                    if (winnerName == null)
-                        winnerName = winnerId;
-
-                    showGameOverPopup(winnerId, winnerName, state.score1(), state.score2());
+                if (chatPanel != null) {
+                    chatPanel.appendMessage("System", "System", "[System] 플레이어가 입장했습니다. 게임을 시작합니다!");
                 }
-            });
+            }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+            // 게임 종료 확인
+            if (!gameOver && (state.score1() >= 5 || state.score2() >= 5)) {
+                gameOver = true;
+                // 승자 ID 결정
+                String winnerId = (state.score1() >= 5) ? "p1" : "p2";
+                String winnerName = (state.score1() >= 5) ? (state.p1() != null ? state.p1().nickname() : "p1")
+                        : (state.p2() != null ? state.p2().nickname() : "p2");
+                if (winnerName == null)
+                    winnerName = winnerId;
+
+                showGameOverPopup(winnerId, winnerName, state.score1(), state.score2());
+            }
+        });
     }
 
     @Override
@@ -701,12 +803,12 @@ public class FencingClientApp extends Application {
 
     private class GameWebSocketClient extends WebSocketClient {
         public GameWebSocketClient(URI serverUri) {
-            super(serverUri);
+            super(serverUri, Map.of(WireFormat.HEADER, WireFormat.VERSION)); // 바이너리 프레임 요청
         }
 
         @Override
         public void onOpen(ServerHandshake handshakedata) {
-            Platform.runLater(() -> chatPanel.appendMessage("System", "System", "[System] 서버에 연결되었습니다. 방에 참가 중..."));
+            chatPanel.appendMessage("System", "System", "[System] 서버에 연결되었습니다. 방에 참가 중...");
             sendJoin();
         }
 
@@ -721,7 +823,8 @@ public class FencingClientApp extends Application {
                         0, // y 좌표 (입장 시 무관)
                         false, // 방향 (입장 시 무관)
                         false, // 공격 상태
-                        null);
+                        null,
+                        0); // 입력 시퀀스
                 this.send(mapper.writeValueAsString(join));
             } catch (Exception e) {
                 e.printStackTrace();
@@ -731,79 +834,106 @@ public class FencingClientApp extends Application {
         @Override
         public void onMessage(String message) {
             try {
-                Map<String, Object> map = mapper.readValue(message, Map.class);
-
-                if (map.get("type") != null) {
-                    String type = map.get("type").toString();
-
-                    if (type.equals("chat")) {
-                        String sender = (String) map.get("senderId");
-                        String nick = (String) map.get("nickname");
-                        String text = (String) map.get("text");
-                        // 닉네임이 있으면 사용, 없으면 senderId 사용
-                        String displayName = (nick != null && !nick.isEmpty()) ? nick : sender;
-                        Platform.runLater(() -> chatPanel.appendMessage(sender, displayName, text));
-                        return;
-                    }
-                    if (type.equals("assign")) {
-                        playerId = (String) map.get("playerId");
-
-                        Platform.runLater(() -> {
-                            if ("p1".equals(playerId)) {
-                                x = 100;
-                                y = 400;
-                                facingRight = true;
-                            } else {
-                                x = 700;
-                                y = 400;
-                                facingRight = false;
-                            }
-                            String name = nickname;
-                            if (name == null || name.isEmpty())
-                                name = playerId;
-                            String color = "p1".equals(playerId) ? "#00BFFF" : "#FA8072"; // 더 밝은 파란색
-                            chatPanel.appendSystemMessageWithHighlight("System", name, " 환영합니다! (" + playerId + ")",
-                                    color);
-                        });
-                        return;
-                    }
-                    if (type.equals("error")) {
-                        String msg = (String) map.get("msg");
-                        Platform.runLater(() -> chatPanel.appendMessage("System", "System", "[Error] " + msg));
-                        return;
+                // ✅ type 만 먼저 보고 (트리 없이) 해당 DTO 로 바로 바인딩
+                switch (decoder.typeOf(message)) {
+                    case STATE -> onJsonState(decoder.state(message));
+                    case CHAT -> appendChat(decoder.chat(message));
+                    case CHAT_BATCH -> {
+                        // ✅ 서버가 짧은 시간 동안 모아 보낸 여러 줄
+                        ServerMessageDecoder.ChatBatch batch = decoder.chatBatch(message);
+                        if (batch.lines() != null) {
+                            for (ServerMessageDecoder.Chat line : batch.lines()) appendChat(line);
+                        }
                     }
-                    return;
+                    case ASSIGN -> onAssign(decoder.assign(message));
+                    case ERROR -> chatPanel.appendMessage("System", "System", "[Error] " + decoder.error(message).msg());
+                    default -> { }
                 }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
 
-                onServerState(message);
+        @Override
+        public void onMessage(ByteBuffer bytes) {
+            try {
+                WireSnapshot snap = null;
+                byte op = bytes.get();
+
+                if (op == WireFormat.OP_STATE) {
+                    int seq = bytes.getInt(bytes.position());
+                    snap = slot(seq);
+                    snap.readFull(bytes);
+                } else if (op == WireFormat.OP_STATE_DELTA) {
+                    int seq = bytes.getInt();
+                    int baseSeq = bytes.getInt();
+                    int mask = bytes.getShort() & 0xFFFF;
+
+                    WireSnapshot base = slot(baseSeq);
+                    if (base.seq != baseSeq)
+                        return; // 기준 스냅샷이 없으면 버림 (ack 가 안 올라가니 서버가 키프레임을 보냄)
+
+                    snap = slot(seq);
+                    snap.applyDelta(seq, base, mask, bytes);
+                }
 
-            } catch (Exception e) {
-                try {
-                    onServerState(message);
-                } catch (Exception ignore) {
+                if (snap != null) {
+                    lastAppliedSnapshot = snap.seq;
+                    onServerState(snap.toGameState(roomName, nick1, nick2), System.nanoTime());
                 }
+            } catch (Exception e) {
+                e.printStackTrace();
             }
         }
 
+        private void onAssign(ServerMessageDecoder.Assign assign) {
+            playerId = assign.playerId();
+            binaryWire = WireFormat.VERSION.equals(assign.wire()); // 구버전 서버면 JSON 유지
+            long interpDelayMs = assign.interpDelay() != null ? assign.interpDelay() : DEFAULT_INTERP_DELAY_MS;
+
+            Platform.runLater(() -> {
+                pendingInputs.reset(inputSeq); // 이전 방에서 보낸 입력 에코는 무시
+                snapshotBuffer.clear();
+                pose1.reset();
+                pose2.reset();
+                interpDelayNanos = interpDelayMs * 1_000_000L;
+                boolean p1 = "p1".equals(playerId);
+                x = FencingRules.spawnX(p1);
+                y = FencingRules.SPAWN_Y;
+                facingRight = FencingRules.spawnFacingRight(p1);
+                String name = nickname;
+                if (name == null || name.isEmpty())
+                    name = playerId;
+                String color = "p1".equals(playerId) ? "#00BFFF" : "#FA8072"; // 더 밝은 파란색
+                chatPanel.appendSystemMessageWithHighlight("System", name, " 환영합니다! (" + playerId + ")",
+                        color);
+            });
+        }
+
+        private void appendChat(ServerMessageDecoder.Chat line) {
+            String sender = line.senderId();
+            String nick = line.nickname();
+            String text = line.text();
+            // 닉네임이 있으면 사용, 없으면 senderId 사용
+            String displayName = (nick != null && !nick.isEmpty()) ? nick : sender;
+            chatPanel.appendMessage(sender, displayName, text);
+        }
+
+        private WireSnapshot slot(int seq) {
+            int i = Math.floorMod(seq, SNAPSHOT_HISTORY);
+            if (snapshots[i] == null)
+                snapshots[i] = new WireSnapshot();
+            return snapshots[i];
+        }
+
         @Override
         public void onClose(int code, String reason, boolean remote) {
-            Platform.runLater(() -> chatPanel.appendMessage("System", "System", "[System] 서버 연결 종료됨."));
+            chatPanel.appendMessage("System", "System", "[System] 서버 연결 종료됨.");
         }
 
         @Override
         public void onError(Exception ex) {
-            Platform.runLater(() -> chatPanel.appendMessage("System", "System", "[Error] " + ex.getMessage()));
+            chatPanel.appendMessage("System", "System", "[Error] " + ex.getMessage());
         }
     }
 }
-
-/** 데이터 구조 동일 */
-record Msg(String type, String room, String playerId, String nickname, double x, double y, boolean facingRight,
-        String chat) {
-}
-
-record Player(String id, String nickname, double x, double y, boolean facingRight, boolean attacking) {
-}
-
-record GameState(String room, Player p1, Player p2, int score1, int score2, long gameStartTime) {
-}
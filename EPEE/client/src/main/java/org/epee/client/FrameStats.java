@@ -0,0 +1,64 @@
+package org.epee.client;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 프레임 시간(update+render) / 프레임당 FX 스레드 할당량을 모아서 주기적으로 콘솔에 출력.
+ * -Depee.frameStats=true 일 때만 켜짐 (저사양 노트북에서 렌더 루프 비용 확인용).
+ */
+final class FrameStats {
+
+    static final boolean ENABLED = Boolean.getBoolean("epee.frameStats");
+
+    private static final long REPORT_INTERVAL = 5_000_000_000L; // ns
+
+    // HotSpot 확장 (없으면 할당량은 -1 로 표시)
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t
+                    && t.isThreadAllocatedMemorySupported() ? t : null;
+
+    private long frameStart;
+    private long allocStart;
+
+    private long windowStart = 0;
+    private int frames = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+    private long totalAlloc = 0;
+
+    void begin() {
+        frameStart = System.nanoTime();
+        allocStart = allocated();
+    }
+
+    void end() {
+        long end = System.nanoTime();
+        long dt = end - frameStart;
+        frames++;
+        totalNanos += dt;
+        maxNanos = Math.max(maxNanos, dt);
+        if (allocStart >= 0) totalAlloc += allocated() - allocStart;
+
+        if (windowStart == 0) windowStart = end;
+        if (end - windowStart >= REPORT_INTERVAL) {
+            report(end - windowStart);
+            windowStart = end;
+            frames = 0;
+            totalNanos = 0;
+            maxNanos = 0;
+            totalAlloc = 0;
+        }
+    }
+
+    private void report(long window) {
+        System.out.printf("[frame] %.1f fps, avg %.3f ms, max %.3f ms, alloc %s B/frame%n",
+                frames * 1e9 / window,
+                totalNanos / 1e6 / frames,
+                maxNanos / 1e6,
+                THREADS == null ? "-1" : String.valueOf(totalAlloc / frames));
+    }
+
+    private static long allocated() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+}
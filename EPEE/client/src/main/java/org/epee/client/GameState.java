@@ -0,0 +1,5 @@
+package org.epee.client;
+
+/** 서버 state 스냅샷 (JSON 은 Jackson 으로, 바이너리는 WireSnapshot 에서 만들어짐) */
+public record GameState(String room, Player p1, Player p2, int score1, int score2, long gameStartTime) {
+}
@@ -0,0 +1,9 @@
+package org.epee.client;
+
+/**
+ * 클라 -> 서버 JSON 메시지 (join / move / attack / chat 공용).
+ * FX 에 의존하지 않으므로 loadgen 같은 헤드리스 클라도 그대로 사용.
+ */
+public record Msg(String type, String room, String playerId, String nickname, double x, double y,
+        boolean facingRight, boolean attacking, String chat, int seq) {
+}
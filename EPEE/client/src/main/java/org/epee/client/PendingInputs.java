@@ -0,0 +1,48 @@
+package org.epee.client;
+
+/**
+ * 내가 보낸 입력들의 (seq, 보낼 때 위치) 기록. seq % SIZE 자리에 덮어쓰는 링 버퍼, FX 스레드 전용.
+ * 서버 스냅샷이 "마지막으로 처리한 입력 seq" 를 돌려주면, 그 입력을 보낼 때 위치와 서버 위치를 비교해서
+ * 차이만큼만 현재 위치를 옮긴다 (= 서버 위치 위에 그 뒤 입력들을 다시 얹음, 예측이 맞았으면 차이 0).
+ */
+final class PendingInputs {
+
+    // 하트비트/키 입력 기준으로 RTT 1초 넘게 쌓여도 충분한 크기
+    static final int SIZE = 128;
+
+    private final int[] seqs = new int[SIZE];
+    private final double[] xs = new double[SIZE];
+    private final double[] ys = new double[SIZE];
+
+    // ✅ 보정한 순간까지 보낸 입력들은 보정 전 좌표 기준이라 그 에코는 무시
+    private int fence = 0;
+
+    void add(int seq, double x, double y) {
+        int i = Math.floorMod(seq, SIZE);
+        seqs[i] = seq;
+        xs[i] = x;
+        ys[i] = y;
+    }
+
+    /** 새 방 입장 / 위치 보정 직후: lastSentSeq 까지 보낸 입력의 에코는 보정에 쓰지 않음 */
+    void reset(int lastSentSeq) {
+        fence = lastSentSeq;
+    }
+
+    /** 보정에 쓸 수 있는 에코인지 (0 = 서버가 아직 처리한 입력 없음) */
+    boolean usable(int ackedSeq) {
+        return ackedSeq > fence;
+    }
+
+    boolean has(int seq) {
+        return seqs[Math.floorMod(seq, SIZE)] == seq;
+    }
+
+    double x(int seq) {
+        return xs[Math.floorMod(seq, SIZE)];
+    }
+
+    double y(int seq) {
+        return ys[Math.floorMod(seq, SIZE)];
+    }
+}
@@ -0,0 +1,5 @@
+package org.epee.client;
+
+/** seq = 서버가 이 플레이어 입력 중 마지막으로 처리한 번호 (예측 보정용, 구버전 서버면 0) */
+public record Player(String id, String nickname, double x, double y, boolean facingRight, boolean attacking, int seq) {
+}
@@ -0,0 +1,42 @@
+package org.epee.client;
+
+/**
+ * 한 프레임에 그릴 플레이어 1명의 모습 + 애니메이션 타이머. p1/p2 자리마다 1개를 계속 재사용 (FX 스레드 전용).
+ * 프레임마다 Player 레코드/HashMap 항목을 만들던 것 대체, 시각은 전부 AnimationTimer 의 now(ns) 기준.
+ */
+final class PlayerPose {
+
+    static final long NEVER = Long.MIN_VALUE;
+
+    boolean present;
+    double x;
+    double y;
+    boolean facingRight;
+    boolean attacking;
+
+    // ✅ 직전 프레임에 그린 x (전진 애니메이션 판단용), NaN = 없음
+    double drawnX = Double.NaN;
+
+    long lastAttack = NEVER;
+    long lastForward = NEVER;
+
+    void set(double x, double y, boolean facingRight, boolean attacking) {
+        this.present = true;
+        this.x = x;
+        this.y = y;
+        this.facingRight = facingRight;
+        this.attacking = attacking;
+    }
+
+    void set(Player p) {
+        set(p.x(), p.y(), p.facingRight(), p.attacking());
+    }
+
+    // 새 방 입장 시
+    void reset() {
+        present = false;
+        drawnX = Double.NaN;
+        lastAttack = NEVER;
+        lastForward = NEVER;
+    }
+}
@@ -0,0 +1,48 @@
+package org.epee.client;
+
+import java.util.Objects;
+
+import javafx.scene.control.Label;
+
+/**
+ * 점수판 라벨 4개 + 마지막으로 표시한 값. 값이 바뀐 경우에만 setText 해서
+ * 매 프레임 runLater/문자열 생성/레이아웃 요청이 생기지 않도록 한다 (FX 스레드 전용).
+ */
+final class ScoreHud {
+
+    private final Label name1;
+    private final Label score1;
+    private final Label score2;
+    private final Label name2;
+
+    private int shownScore1 = -1;
+    private int shownScore2 = -1;
+    private String shownName1;
+    private String shownName2;
+
+    ScoreHud(Label name1, Label score1, Label score2, Label name2) {
+        this.name1 = name1;
+        this.score1 = score1;
+        this.score2 = score2;
+        this.name2 = name2;
+    }
+
+    void update(GameState state) {
+        if (state.score1() != shownScore1) {
+            shownScore1 = state.score1();
+            score1.setText(String.valueOf(shownScore1));
+        }
+        if (state.score2() != shownScore2) {
+            shownScore2 = state.score2();
+            score2.setText(String.valueOf(shownScore2));
+        }
+        if (state.p1() != null && !Objects.equals(state.p1().nickname(), shownName1)) {
+            shownName1 = state.p1().nickname();
+            name1.setText(shownName1);
+        }
+        if (state.p2() != null && !Objects.equals(state.p2().nickname(), shownName2)) {
+            shownName2 = state.p2().nickname();
+            name2.setText(shownName2);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.epee.client;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * 서버 JSON 메시지를 트리(JsonNode) 없이 type 만 먼저 보고 해당 DTO 로 바로 바인딩한다.
+ * 서버 MessageDecoder.peekType 과 같은 방식: 보통은 문자열 앞부분만 비교해서 끝나고
+ * (state 는 "room", 채팅은 "type" 이 첫 필드), 필드 순서가 다른 메시지 (Map.of 로 보내는 assign/error)
+ * 만 스트리밍 파서로 최상위 필드를 훑어서 type 을 찾는다. type 필드가 없으면 state.
+ */
+final class ServerMessageDecoder {
+
+    enum Type { STATE, CHAT, CHAT_BATCH, ASSIGN, ERROR, UNKNOWN }
+
+    record Chat(String senderId, String nickname, String text) {}
+
+    record ChatBatch(List<Chat> lines) {}
+
+    record Assign(String playerId, String wire, Long interpDelay) {}
+
+    record ErrorMessage(String msg) {}
+
+    private static final String STATE_PREFIX = "{\"room\":";
+    private static final String TYPE_PREFIX = "{\"type\":\"";
+
+    private final ObjectMapper mapper;
+    private final ObjectReader state;
+    private final ObjectReader chat;
+    private final ObjectReader chatBatch;
+    private final ObjectReader assign;
+    private final ObjectReader error;
+
+    ServerMessageDecoder(ObjectMapper mapper) {
+        this.mapper = mapper;
+        // DTO 에 없는 필드 (type 등) 는 무시, 타입별 리더는 한 번만 만들어 재사용
+        ObjectReader r = mapper.reader().without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.state = r.forType(GameState.class);
+        this.chat = r.forType(Chat.class);
+        this.chatBatch = r.forType(ChatBatch.class);
+        this.assign = r.forType(Assign.class);
+        this.error = r.forType(ErrorMessage.class);
+    }
+
+    Type typeOf(String json) throws IOException {
+        Type t = peekType(json);
+        return t != null ? t : scanType(json);
+    }
+
+    /** 앞부분만 보고 알 수 있으면 type, 모양이 다르면 null */
+    static Type peekType(String json) {
+        if (json.startsWith(STATE_PREFIX)) return Type.STATE;
+        if (!json.startsWith(TYPE_PREFIX)) return null;
+        int off = TYPE_PREFIX.length();
+        if (is(json, off, "chat")) return Type.CHAT;
+        if (is(json, off, "chatBatch")) return Type.CHAT_BATCH;
+        if (is(json, off, "assign")) return Type.ASSIGN;
+        if (is(json, off, "error")) return Type.ERROR;
+        return null;
+    }
+
+    // json[off..] 이 "s" + 닫는 따옴표인지
+    private static boolean is(String json, int off, String s) {
+        return json.startsWith(s, off) && json.length() > off + s.length() && json.charAt(off + s.length()) == '"';
+    }
+
+    // ✅ 최상위 필드만 훑음 (값은 건너뜀), type 을 찾으면 바로 멈춤
+    private Type scanType(String json) throws IOException {
+        try (JsonParser p = mapper.getFactory().createParser(json)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return Type.UNKNOWN;
+
+            String field;
+            while ((field = p.nextFieldName()) != null) {
+                JsonToken t = p.nextToken();
+                if ("type".equals(field)) return t == JsonToken.VALUE_STRING ? typeNamed(p.getText()) : Type.UNKNOWN;
+                p.skipChildren();
+            }
+        }
+        return Type.STATE;
+    }
+
+    private static Type typeNamed(String type) {
+        return switch (type) {
+            case "chat" -> Type.CHAT;
+            case "chatBatch" -> Type.CHAT_BATCH;
+            case "assign" -> Type.ASSIGN;
+            case "error" -> Type.ERROR;
+            default -> Type.UNKNOWN;
+        };
+    }
+
+    GameState state(String json) throws IOException {
+        return state.readValue(json);
+    }
+
+    Chat chat(String json) throws IOException {
+        return chat.readValue(json);
+    }
+
+    ChatBatch chatBatch(String json) throws IOException {
+        return chatBatch.readValue(json);
+    }
+
+    Assign assign(String json) throws IOException {
+        return assign.readValue(json);
+    }
+
+    ErrorMessage error(String json) throws IOException {
+        return error.readValue(json);
+    }
+}
@@ -0,0 +1,100 @@
+package org.epee.client;
+
+import java.util.Arrays;
+
+/**
+ * 받은 state 를 수신 시각과 함께 보관하는 링 버퍼 (FX 스레드 전용).
+ * 상대 플레이어는 "지금 - delay" 시점으로 그리고, 그 앞뒤 스냅샷 사이를 선형 보간한다.
+ * 연속으로 오던 스냅샷이 끊기면 직전 이동을 짧게(MAX_EXTRAPOLATION) 이어서 그리고, 그 뒤엔 마지막 위치로 돌아간다.
+ * (서버는 바뀐 게 있을 때만 보내므로 오래 안 오는 건 손실이 아니라 정지일 수 있음)
+ */
+final class SnapshotBuffer {
+
+    static final int SIZE = 32;
+
+    // ✅ 끊겼을 때 이어 그리는 최대 시간, 직전 두 스냅샷 간격도 이 이하여야 "연속 전송 중" 으로 봄
+    static final long MAX_EXTRAPOLATION_NANOS = 50_000_000L;
+
+    private final long[] at = new long[SIZE];
+    private final GameState[] states = new GameState[SIZE];
+    private int head = -1;
+    private int count = 0;
+
+    void add(long receivedAtNanos, GameState state) {
+        head = (head + 1) % SIZE;
+        at[head] = receivedAtNanos;
+        states[head] = state;
+        if (count < SIZE) count++;
+    }
+
+    void clear() {
+        head = -1;
+        count = 0;
+        Arrays.fill(states, null);
+    }
+
+    /** renderTime 시점의 p1(또는 p2) 모습을 out 에 채움 (새 객체 없음), 그릴 게 없으면 false */
+    boolean poseAt(long renderTime, boolean p1, PlayerPose out) {
+        if (count == 0) return false;
+
+        // 최근 칸부터 거꾸로: renderTime 이전(이하)인 첫 스냅샷 a 와 그 다음 b
+        int newer = -1;
+        for (int n = 0; n < count; n++) {
+            int i = Math.floorMod(head - n, SIZE);
+            if (at[i] <= renderTime) {
+                if (newer < 0) return extrapolate(i, renderTime, p1, out);
+                return interpolate(i, newer, renderTime, p1, out);
+            }
+            newer = i;
+        }
+        return copy(pick(states[newer], p1), out); // 기록보다 더 과거면 가장 오래된 것
+    }
+
+    private boolean interpolate(int a, int b, long t, boolean p1, PlayerPose out) {
+        GameState sa = states[a];
+        GameState sb = states[b];
+        Player pa = pick(sa, p1);
+        Player pb = pick(sb, p1);
+        if (pa == null || pb == null) return copy(pa, out);
+
+        // ✅ 득점(리스폰) 사이는 미끄러지듯 그리면 안 됨 -> b 가 올 때까지 a 유지
+        if (sa.score1() != sb.score1() || sa.score2() != sb.score2()) return copy(pa, out);
+        if (at[b] == at[a]) return copy(pb, out);
+
+        double f = (double) (t - at[a]) / (at[b] - at[a]);
+        Player near = f < 0.5 ? pa : pb; // 이산 필드(방향/공격)는 가까운 쪽을 따름
+        out.set(pa.x() + (pb.x() - pa.x()) * f, pa.y() + (pb.y() - pa.y()) * f,
+                near.facingRight(), near.attacking());
+        return true;
+    }
+
+    private boolean extrapolate(int newest, long t, boolean p1, PlayerPose out) {
+        Player pb = pick(states[newest], p1);
+        if (pb == null || count < 2) return copy(pb, out);
+
+        int prev = Math.floorMod(newest - 1, SIZE);
+        Player pa = pick(states[prev], p1);
+        if (pa == null || states[prev].score1() != states[newest].score1()
+                || states[prev].score2() != states[newest].score2()) return copy(pb, out);
+
+        long span = at[newest] - at[prev];
+        long ahead = t - at[newest];
+        if (span <= 0 || span > MAX_EXTRAPOLATION_NANOS || ahead > MAX_EXTRAPOLATION_NANOS) return copy(pb, out);
+
+        // 직전 한 칸보다 멀리는 안 감 (이동이 계단식이라 넘겨 그리지 않도록)
+        double k = Math.min(1.0, (double) ahead / span);
+        out.set(pb.x() + (pb.x() - pa.x()) * k, pb.y() + (pb.y() - pa.y()) * k,
+                pb.facingRight(), pb.attacking());
+        return true;
+    }
+
+    private static boolean copy(Player p, PlayerPose out) {
+        if (p == null) return false;
+        out.set(p);
+        return true;
+    }
+
+    private static Player pick(GameState s, boolean p1) {
+        return p1 ? s.p1() : s.p2();
+    }
+}
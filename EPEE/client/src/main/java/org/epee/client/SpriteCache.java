@@ -0,0 +1,161 @@
+package org.epee.client;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * 펜서 스프라이트(fencing1/2/3.png)와 배경을 현재 화면 배율로 미리 만들어 두는 캐시 (FX 스레드 전용).
+ * PNG 는 시작할 때 한 번만 디코딩하고, 오른쪽 보는 버전도 그때 원본 픽셀을 좌우로 뒤집어 한 번만 만든다.
+ * 캔버스 크기가 바뀌면 크기가 {@link #SETTLE_NANOS} 동안 그대로일 때만 원본에서 메모리 안에서 줄여 다시 만들고
+ * (창 드래그 중에는 매 프레임 다시 만들지 않음), 그 전까지는 원본을 drawImage(img, x, y, w, h) 로 늘려 그린다.
+ * 자리 잡은 뒤에는 프레임마다 변환(save/scale/restore) 없이 같은 크기 drawImage 만 한다 (소프트웨어 파이프라인 대비).
+ */
+final class SpriteCache {
+
+    enum Sprite { IDLE, FORWARD, ATTACK }
+
+    // 논리 좌표(900x500) 기준 스프라이트 높이
+    static final double SPRITE_HEIGHT = 150;
+
+    private static final String[] FILES = { "/fencing1.png", "/fencing2.png", "/fencing3.png" }; // Sprite 순서
+
+    // 캔버스 크기가 이만큼 그대로면 그 크기로 다시 만듦 (드래그 리사이즈 디바운스)
+    static final long SETTLE_NANOS = TimeUnit.MILLISECONDS.toNanos(150);
+
+    // 원본 이미지가 왼쪽을 보므로 [i][0] = 왼쪽(원본), [i][1] = 오른쪽(뒤집은 것)
+    private final Image[][] originals = new Image[Sprite.values().length][2];
+    private final Image backgroundOriginal;
+    private final boolean hasSprites;
+
+    // 현재 배율로 줄여 둔 것 (builtScale / builtWidth x builtHeight 기준, 아직 없으면 null)
+    private final Image[][] sprites = new Image[Sprite.values().length][2];
+    private Image background;
+
+    private double wantWidth = -1;
+    private double wantHeight = -1;
+    private double wantScale = -1;
+    private long changedAt;
+
+    private double builtWidth = -1;
+    private double builtHeight = -1;
+    private double builtScale = -1;
+
+    SpriteCache(Class<?> owner) {
+        boolean all = true;
+        for (Sprite s : Sprite.values()) {
+            Image left = load(owner, FILES[s.ordinal()]);
+            originals[s.ordinal()][0] = left;
+            originals[s.ordinal()][1] = left == null ? null : mirror(left);
+            all &= left != null;
+        }
+        hasSprites = all;
+        backgroundOriginal = load(owner, "/background.png"); // 없으면 단색 배경
+    }
+
+    /** 스프라이트 3개가 다 디코딩됐는지 (아니면 사각형으로 대체해서 그림) */
+    boolean hasSprites() {
+        return hasSprites;
+    }
+
+    /** 매 프레임 호출: 캔버스 크기/배율이 바뀐 뒤 SETTLE_NANOS 동안 그대로면 그때 한 번 다시 만듦 */
+    void resize(double canvasWidth, double canvasHeight, double scale, long now) {
+        if (canvasWidth <= 0 || canvasHeight <= 0 || scale <= 0) return;
+
+        if (canvasWidth != wantWidth || canvasHeight != wantHeight || scale != wantScale) {
+            wantWidth = canvasWidth;
+            wantHeight = canvasHeight;
+            wantScale = scale;
+            changedAt = now;
+            return;
+        }
+        if (now - changedAt < SETTLE_NANOS) return;
+
+        if (scale != builtScale) {
+            builtScale = scale;
+            double h = spriteHeight();
+            for (Sprite s : Sprite.values()) {
+                for (int side = 0; side < 2; side++) {
+                    Image src = originals[s.ordinal()][side];
+                    sprites[s.ordinal()][side] = src == null ? null : scaled(src, 0, h);
+                }
+            }
+        }
+
+        if (canvasWidth != builtWidth || canvasHeight != builtHeight) {
+            builtWidth = canvasWidth;
+            builtHeight = canvasHeight;
+            background = backgroundOriginal == null ? null : scaled(backgroundOriginal, canvasWidth, canvasHeight);
+        }
+    }
+
+    /** 현재 배율의 스프라이트 높이 (캔버스 픽셀), 그릴 때는 항상 이 높이로 */
+    double spriteHeight() {
+        return Math.max(1, Math.round(SPRITE_HEIGHT * wantScale));
+    }
+
+    /** 현재 배율로 줄여 둔 스프라이트, 아직 못 만들었으면 원본 (리소스가 없으면 null) */
+    Image sprite(Sprite s, boolean facingRight) {
+        int side = facingRight ? 1 : 0;
+        return builtScale == wantScale ? sprites[s.ordinal()][side] : originals[s.ordinal()][side];
+    }
+
+    /** 캔버스 크기로 줄여 둔 배경, 아직 못 만들었으면 원본 (리소스가 없으면 null) */
+    Image background() {
+        return builtWidth == wantWidth && builtHeight == wantHeight ? background : backgroundOriginal;
+    }
+
+    private static Image load(Class<?> owner, String name) {
+        URL url = owner.getResource(name);
+        if (url == null) {
+            System.err.println("Failed to load images: " + name + " not found");
+            return null;
+        }
+        try {
+            Image img = new Image(url.toExternalForm()); // 동기 로딩, 원본 크기 그대로
+            if (!img.isError()) return img;
+            System.err.println("Failed to load images: " + name + " " + img.getException());
+        } catch (Exception e) {
+            System.err.println("Failed to load images: " + e.getMessage());
+        }
+        return null;
+    }
+
+    // ✅ 이미 디코딩한 원본을 메모리 안에서 부드럽게 줄임 (w 가 0 이면 h 에 맞춰 비율 유지)
+    private static Image scaled(Image src, double w, double h) {
+        ImageView view = new ImageView(src);
+        view.setFitWidth(w);
+        view.setFitHeight(h);
+        view.setPreserveRatio(w == 0);
+        view.setSmooth(true);
+
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        return view.snapshot(params, null);
+    }
+
+    // ✅ 행마다 픽셀 순서를 뒤집어서 새 이미지로 (프레임마다 scale(-1, 1) 하던 것 대체, 원본에 한 번만)
+    private static Image mirror(Image src) {
+        int w = (int) src.getWidth();
+        int h = (int) src.getHeight();
+        PixelReader reader = src.getPixelReader();
+        if (reader == null || w == 0 || h == 0) return src;
+
+        int[] row = new int[w];
+        int[] flipped = new int[w];
+        WritableImage out = new WritableImage(w, h);
+        for (int y = 0; y < h; y++) {
+            reader.getPixels(0, y, w, 1, PixelFormat.getIntArgbInstance(), row, 0, w);
+            for (int x = 0; x < w; x++) flipped[x] = row[w - 1 - x];
+            out.getPixelWriter().setPixels(0, y, w, 1, PixelFormat.getIntArgbInstance(), flipped, 0, w);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,49 @@
+package org.epee.client;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 서버 org.epee.server.WireFormat 과 같은 바이너리 레이아웃 (big-endian).
+ * 접속 헤더로 bin1 을 요청하고, assign 응답에 wire=bin1 이 와야 바이너리로 전환한다.
+ * 입력 프레임마다 마지막으로 적용한 스냅샷 번호(ack)를 실어 보내서 서버가 델타 기준을 고른다.
+ */
+final class WireFormat {
+
+    static final String HEADER = "X-Epee-Wire";
+    static final String VERSION = "bin1";
+
+    static final byte OP_MOVE = 0x01;
+    static final byte OP_ATTACK = 0x02;
+    static final byte OP_ACK = 0x03;
+    static final byte OP_STATE = 0x10;
+    static final byte OP_STATE_DELTA = 0x11;
+
+    static final int MOVE_SIZE = 18;
+    static final int ATTACK_SIZE = 9;
+    static final int ACK_SIZE = 5;
+
+    static final int F_PRESENT = 1;
+    static final int F_FACING_RIGHT = 1 << 1;
+    static final int F_ATTACKING = 1 << 2;
+
+    private WireFormat() {}
+
+    static ByteBuffer move(int seq, int ack, double x, double y, boolean facingRight, boolean attacking) {
+        int flags = (facingRight ? F_FACING_RIGHT : 0) | (attacking ? F_ATTACKING : 0);
+        ByteBuffer out = ByteBuffer.allocate(MOVE_SIZE);
+        out.put(OP_MOVE).putInt(seq).putInt(ack).putFloat((float) x).putFloat((float) y).put((byte) flags);
+        return out.flip();
+    }
+
+    static ByteBuffer attack(int seq, int ack) {
+        ByteBuffer out = ByteBuffer.allocate(ATTACK_SIZE);
+        out.put(OP_ATTACK).putInt(seq).putInt(ack);
+        return out.flip();
+    }
+
+    static ByteBuffer ack(int ack) {
+        ByteBuffer out = ByteBuffer.allocate(ACK_SIZE);
+        out.put(OP_ACK).putInt(ack);
+        return out.flip();
+    }
+}
@@ -0,0 +1,83 @@
+package org.epee.client;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 서버 org.epee.server.WireSnapshot 과 같은 필드/마스크 순서.
+ * 받은 스냅샷을 링 버퍼에 보관해두고 STATE_DELTA 를 기준 스냅샷 위에 적용한다.
+ */
+final class WireSnapshot {
+
+    static final int D_SCORE1 = 1;
+    static final int D_SCORE2 = 1 << 1;
+    static final int D_START = 1 << 2;
+    static final int D_P1_FLAGS = 1 << 3;
+    static final int D_P1_X = 1 << 4;
+    static final int D_P1_Y = 1 << 5;
+    static final int D_P1_SEQ = 1 << 6;
+    static final int D_P2_FLAGS = 1 << 7;
+    static final int D_P2_X = 1 << 8;
+    static final int D_P2_Y = 1 << 9;
+    static final int D_P2_SEQ = 1 << 10;
+
+    int seq = -1; // -1 = 비어있음
+    short score1;
+    short score2;
+    long gameStartTime;
+    byte flags1;
+    float x1;
+    float y1;
+    int seq1;
+    byte flags2;
+    float x2;
+    float y2;
+    int seq2;
+
+    /** STATE 본문 (op 다음부터) */
+    void readFull(ByteBuffer in) {
+        seq = in.getInt();
+        score1 = in.getShort();
+        score2 = in.getShort();
+        gameStartTime = in.getLong();
+        flags1 = in.get();
+        x1 = in.getFloat();
+        y1 = in.getFloat();
+        seq1 = in.getInt();
+        flags2 = in.get();
+        x2 = in.getFloat();
+        y2 = in.getFloat();
+        seq2 = in.getInt();
+    }
+
+    /** STATE_DELTA 의 mask 이후 필드들을 base 위에 덮어씀 (seq/base/mask 는 호출자가 읽음) */
+    void applyDelta(int seq, WireSnapshot base, int mask, ByteBuffer in) {
+        this.seq = seq;
+        score1 = (mask & D_SCORE1) != 0 ? in.getShort() : base.score1;
+        score2 = (mask & D_SCORE2) != 0 ? in.getShort() : base.score2;
+        gameStartTime = (mask & D_START) != 0 ? in.getLong() : base.gameStartTime;
+        flags1 = (mask & D_P1_FLAGS) != 0 ? in.get() : base.flags1;
+        x1 = (mask & D_P1_X) != 0 ? in.getFloat() : base.x1;
+        y1 = (mask & D_P1_Y) != 0 ? in.getFloat() : base.y1;
+        seq1 = (mask & D_P1_SEQ) != 0 ? in.getInt() : base.seq1;
+        flags2 = (mask & D_P2_FLAGS) != 0 ? in.get() : base.flags2;
+        x2 = (mask & D_P2_X) != 0 ? in.getFloat() : base.x2;
+        y2 = (mask & D_P2_Y) != 0 ? in.getFloat() : base.y2;
+        seq2 = (mask & D_P2_SEQ) != 0 ? in.getInt() : base.seq2;
+    }
+
+    /** 닉네임은 바이너리에 없으므로 마지막 JSON 스냅샷 값을 넘겨받음 */
+    GameState toGameState(String room, String nick1, String nick2) {
+        return new GameState(room,
+                player("p1", nick1, flags1, x1, y1, seq1),
+                player("p2", nick2, flags2, x2, y2, seq2),
+                score1, score2, gameStartTime);
+    }
+
+    private static Player player(String id, String nickname, byte flags, float x, float y, int seq) {
+        if ((flags & WireFormat.F_PRESENT) == 0) return null;
+        return new Player(id, nickname, x, y,
+                (flags & WireFormat.F_FACING_RIGHT) != 0,
+                (flags & WireFormat.F_ATTACKING) != 0,
+                seq);
+    }
+}
@@ -0,0 +1,185 @@
+package org.epee.common;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 펜싱 규칙 (이동 / 칼끝 / 판정 / 득점 / 리스폰) 을 원시 값만 받는 순수 함수로 모아둔 곳.
+ * 서버는 이걸로 판정하고 (authoritative), 클라는 같은 함수로 예측하므로 두 쪽 숫자가 어긋날 일이 없다.
+ * 객체를 만들지 않고 상태도 없어서 어느 스레드에서 몇 번을 불러도 된다. 시각은 전부 단조 ns.
+ */
+public final class FencingRules {
+
+    // ---- 이동 ----
+
+    public static final double STEP = 30;         // A/D 1회당 이동 거리
+    public static final double MIN_X = 40;        // 피스트 양 끝
+    public static final double MAX_X = 860;
+    public static final double SPAWN_Y = 400;
+    public static final double P1_SPAWN_X = 100;
+    public static final double P2_SPAWN_X = 700;
+    public static final double MOVE_EPSILON = 0.1; // 이보다 작게 움직이면 입력으로 안 봄
+
+    // ---- 공격 ----
+
+    public static final long ATTACK_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(200); // 공격 윈도우 0.2초
+    public static final long BLADE_PEAK_NANOS = ATTACK_WINDOW_NANOS / 2;                 // 0.1초에 최대로 뻗음
+    public static final double BASE_REACH = 40;        // 몸 중심 -> 칼끝 (공격 안 할 때)
+    public static final double BLADE_EXTENSION = 30;   // 찌를 때 최대 추가 거리
+    public static final double HIT_TOLERANCE_X = 20;   // 칼끝과 상대 중심 x 차이
+    public static final double HIT_TOLERANCE_Y = 40;   // 두 사람 y 차이
+
+    // ---- 득점 ----
+
+    public static final long RESPAWN_LOCK_NANOS = TimeUnit.MILLISECONDS.toNanos(200);   // 득점 직후 move 무시
+    public static final long SCORE_DEBOUNCE_NANOS = TimeUnit.MILLISECONDS.toNanos(250); // 연속 득점 방지
+
+    /** attackStart 가 없음 (-1) 을 뜻하는 값 */
+    public static final long NO_ATTACK = -1;
+
+    /** 닿은 시각이 없음 */
+    public static final long NO_CONTACT = -1;
+
+    /**
+     * 아직 득점 없음 (lastScoreTime 초기값). 시계 원점이 0 이라 0 은 "0 초에 득점" 과 구분이 안 됨.
+     * 어떤 now 와 빼도 넘치지 않을 만큼 멀리 두어 canScore 는 항상 true, 되감기 하한도 걸리지 않음.
+     */
+    public static final long NO_SCORE = Long.MIN_VALUE / 2;
+
+    private FencingRules() {}
+
+    // ✅ 한 번 누를 때 이동 (dir = -1 왼쪽, +1 오른쪽), 피스트 밖으로는 못 나감
+    public static double step(double x, int dir) {
+        return clampX(x + dir * STEP);
+    }
+
+    public static double clampX(double x) {
+        return Math.max(MIN_X, Math.min(MAX_X, x));
+    }
+
+    public static double spawnX(boolean p1) {
+        return p1 ? P1_SPAWN_X : P2_SPAWN_X;
+    }
+
+    public static boolean spawnFacingRight(boolean p1) {
+        return p1;
+    }
+
+    /** 위치가 실제로 바뀌었는지 (바뀐 경우만 "최근 입력" 으로 침) */
+    public static boolean moved(double fromX, double fromY, double toX, double toY) {
+        return Math.abs(toX - fromX) > MOVE_EPSILON || Math.abs(toY - fromY) > MOVE_EPSILON;
+    }
+
+    public static boolean isAttacking(long now, long attackStart) {
+        if (attackStart < 0) return false;
+        long dt = now - attackStart;
+        return dt >= 0 && dt <= ATTACK_WINDOW_NANOS;
+    }
+
+    // ✅ 0~0.1 전진, 0.1~0.2 복귀 (삼각파), 0 ~ BLADE_EXTENSION
+    public static double bladeOffset(long now, long attackStart) {
+        if (attackStart < 0) return 0.0;
+        long t = now - attackStart;
+        if (t < 0) return 0.0;
+        if (t < BLADE_PEAK_NANOS) return (double) t / BLADE_PEAK_NANOS * BLADE_EXTENSION;
+        if (t < ATTACK_WINDOW_NANOS) return (1.0 - (double) (t - BLADE_PEAK_NANOS) / BLADE_PEAK_NANOS) * BLADE_EXTENSION;
+        return 0.0;
+    }
+
+    public static double tipX(double x, boolean facingRight, double reach) {
+        return facingRight ? x + reach : x - reach;
+    }
+
+    // ✅ 칼끝이 상대에게 닿았는지 (위치만, 시각 무관)
+    public static boolean touches(double tipX, double attackerY, double defenderX, double defenderY) {
+        return touchesGap(tipX - defenderX, attackerY - defenderY);
+    }
+
+    /** now 시점 판정: 공격 윈도우 안이고, 그 순간 칼끝 (BASE_REACH + bladeOffset) 이 상대에게 닿으면 true */
+    public static boolean hit(double attackerX, double attackerY, boolean facingRight, long attackStart,
+            double defenderX, double defenderY, long now) {
+        if (!isAttacking(now, attackStart)) return false;
+        double reach = BASE_REACH + bladeOffset(now, attackStart);
+        return touches(tipX(attackerX, facingRight, reach), attackerY, defenderX, defenderY);
+    }
+
+    /** t 다음으로 칼끝 움직임이 꺾이는 시각 (최대로 뻗음 / 윈도우 끝), 없으면 Long.MAX_VALUE */
+    public static long nextBladeBreak(long t, long attackStart) {
+        if (attackStart < 0) return Long.MAX_VALUE;
+        if (t < attackStart + BLADE_PEAK_NANOS) return attackStart + BLADE_PEAK_NANOS;
+        if (t < attackStart + ATTACK_WINDOW_NANOS) return attackStart + ATTACK_WINDOW_NANOS;
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * 연속 판정의 한 조각: [t0, t1] 동안 칼끝과 방어자가 각각 직선으로 움직일 때 처음 닿는 시각 (없으면 NO_CONTACT).
+     * gapX = 칼끝 x - 방어자 x, gapY = 공격자 y - 방어자 y 를 구간 양 끝에서 받는다. t0 == t1 이면 그 순간만 봄.
+     */
+    public static long firstContact(long t0, long t1, double gapX0, double gapX1, double gapY0, double gapY1) {
+        if (t1 <= t0) {
+            return touchesGap(gapX0, gapY0) ? t0 : NO_CONTACT;
+        }
+
+        // ✅ 구간을 s = 0..1 로 보고 |gapX(s)| < 허용치, |gapY(s)| < 허용치 인 s 범위의 교집합
+        double lo = 0, hi = 1;
+        double dx = gapX1 - gapX0;
+        if (dx == 0) {
+            if (Math.abs(gapX0) >= HIT_TOLERANCE_X) return NO_CONTACT;
+        } else {
+            lo = Math.max(lo, enter(gapX0, dx, HIT_TOLERANCE_X));
+            hi = Math.min(hi, exit(gapX0, dx, HIT_TOLERANCE_X));
+        }
+        double dy = gapY1 - gapY0;
+        if (dy == 0) {
+            if (Math.abs(gapY0) >= HIT_TOLERANCE_Y) return NO_CONTACT;
+        } else {
+            lo = Math.max(lo, enter(gapY0, dy, HIT_TOLERANCE_Y));
+            hi = Math.min(hi, exit(gapY0, dy, HIT_TOLERANCE_Y));
+        }
+        if (lo >= hi) return NO_CONTACT;
+
+        return Math.min(t1, t0 + (long) Math.ceil(lo * (t1 - t0)));
+    }
+
+    private static boolean touchesGap(double gapX, double gapY) {
+        return Math.abs(gapX) < HIT_TOLERANCE_X && Math.abs(gapY) < HIT_TOLERANCE_Y;
+    }
+
+    // |gap0 + d * s| < tol 이 되는 s 구간의 시작 / 끝 (d != 0)
+    private static double enter(double gap0, double d, double tol) {
+        return Math.min((-tol - gap0) / d, (tol - gap0) / d);
+    }
+
+    private static double exit(double gap0, double d, double tol) {
+        return Math.max((-tol - gap0) / d, (tol - gap0) / d);
+    }
+
+    /**
+     * 지금 찌르면 맞을 수 있는지 (둘 다 안 움직인다고 가정): 윈도우 동안 칼끝이 BASE_REACH ~ BASE_REACH + BLADE_EXTENSION
+     * 을 훑으므로 그 구간 어딘가가 상대에게 닿는지. 클라의 공격 예측용.
+     */
+    public static boolean inReach(double attackerX, double attackerY, boolean facingRight,
+            double defenderX, double defenderY) {
+        double ahead = facingRight ? defenderX - attackerX : attackerX - defenderX;
+        return ahead > BASE_REACH - HIT_TOLERANCE_X
+                && ahead < BASE_REACH + BLADE_EXTENSION + HIT_TOLERANCE_X
+                && Math.abs(attackerY - defenderY) < HIT_TOLERANCE_Y;
+    }
+
+    /** 둘 다 닿을 수 있을 때 p1 을 먼저 볼지 (최근 입력자 우선, 각자 되감기만큼 당긴 시각 기준) */
+    public static boolean p1HasPriority(long p1LastInput, long p1Rewind, long p2LastInput, long p2Rewind) {
+        return p1LastInput - p1Rewind >= p2LastInput - p2Rewind;
+    }
+
+    /** 직전 득점 후 SCORE_DEBOUNCE_NANOS 가 지났는지 */
+    public static boolean canScore(long now, long lastScoreTime) {
+        return now - lastScoreTime >= SCORE_DEBOUNCE_NANOS;
+    }
+
+    public static long respawnLockUntil(long scoredAt) {
+        return scoredAt + RESPAWN_LOCK_NANOS;
+    }
+
+    public static boolean respawnLocked(long now, long lockUntil) {
+        return now < lockUntil;
+    }
+}
@@ -0,0 +1,56 @@
+package org.epee.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * 연속 판정 한 조각 (firstContact). 허용치는 x 20, y 40 이라 양 끝이 2 의 거듭제곱 비율로 나뉘는 값을 써서
+ * 기대 시각이 double 반올림 없이 정확히 떨어지게 했다.
+ */
+class FencingRulesTest {
+
+    private static final long NO = FencingRules.NO_CONTACT;
+
+    // ✅ 틱 두 번 다 칼끝이 상대 밖인데 그 사이에 관통: 양 끝 샘플로는 못 잡는 경우
+    @Test
+    void tunnellingBetweenTicksIsCaught() {
+        // gapX -40 -> +40 (80 동안 균일), |gapX| < 20 은 s = 0.25 ~ 0.75
+        assertEquals(20, FencingRules.firstContact(0, 80, -40, 40, 0, 0));
+        assertEquals(1_020, FencingRules.firstContact(1_000, 1_080, 40, -40, 0, 0));
+    }
+
+    @Test
+    void samePointIsAnInstantCheck() {
+        assertEquals(500, FencingRules.firstContact(500, 500, 10, 999, 0, 999)); // 끝 값은 안 봄
+        assertEquals(NO, FencingRules.firstContact(500, 500, 25, 0, 0, 0));
+        assertEquals(NO, FencingRules.firstContact(500, 500, 0, 0, 40, 0)); // 경계는 안 닿음 (미만)
+        assertEquals(500, FencingRules.firstContact(500, 400, 0, 0, 0, 0));  // t1 < t0 도 t0 한 순간
+    }
+
+    @Test
+    void constantXGapDependsOnlyOnY() {
+        // dx == 0: x 는 계속 닿는 거리, y 가 80 -> 0 으로 다가옴 -> |gapY| < 40 은 s > 0.5
+        assertEquals(512, FencingRules.firstContact(0, 1_024, 5, 5, 80, 0));
+        // dx == 0 인데 x 가 계속 멀면 y 와 상관없이 안 닿음
+        assertEquals(NO, FencingRules.firstContact(0, 1_024, 20, 20, 0, 0));
+    }
+
+    @Test
+    void constantYGapDependsOnlyOnX() {
+        // dy == 0: 같은 높이, x 가 80 -> 0 -> |gapX| < 20 은 s > 0.75
+        assertEquals(768, FencingRules.firstContact(0, 1_024, 80, 0, 0, 0));
+        // dy == 0 인데 높이 차이가 허용치 이상이면 안 닿음
+        assertEquals(NO, FencingRules.firstContact(0, 1_024, 80, 0, -40, -40));
+    }
+
+    @Test
+    void contactStartingPartwayReportsEntryTime() {
+        // 처음부터 닿아 있으면 t0
+        assertEquals(100, FencingRules.firstContact(100, 200, 0, 80, 0, 0));
+        // x 는 s 0.25 ~ 0.75, y 는 s 0.5 ~ 1 -> 둘 다 닿는 건 s = 0.5 부터
+        assertEquals(5_120, FencingRules.firstContact(4_096, 6_144, -40, 40, 80, 0));
+        // x 는 앞쪽 절반에서만, y 는 뒤쪽 절반에서만 -> 동시에 닿는 순간 없음
+        assertEquals(NO, FencingRules.firstContact(0, 1_024, -40, 120, 80, 0));
+    }
+}
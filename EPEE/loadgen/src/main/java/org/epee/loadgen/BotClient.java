@@ -0,0 +1,193 @@
+package org.epee.loadgen;
+
+import java.net.URI;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.epee.client.GameState;
+import org.epee.client.Msg;
+import org.epee.client.Player;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 헤드리스 봇 1명. FencingClientApp 과 같은 JSON 프로토콜(Msg / GameState)로 접속해서
+ * join 후 {@link #step(long)} 이 불릴 때마다 패턴에 맞는 입력을 보낸다.
+ * step 은 드라이버 스레드, onMessage 는 이 소켓의 수신 스레드에서 호출된다.
+ */
+final class BotClient extends WebSocketClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final long HEARTBEAT_MS = 250; // 클라 HEARTBEAT_INTERVAL 과 동일
+    private static final long BURST_EVERY_MS = 1000;
+    private static final int BURST_SIZE = 3;
+    private static final long STALE_SAMPLE_NANOS = 1_000_000_000L; // 틱에 합쳐져서 안 보인 위치는 1초 후 버림
+
+    private final String room;
+    private final String nickname;
+    private final InputPattern pattern;
+    private final LoadStats stats;
+
+    private volatile String playerId;
+    private volatile boolean opened;
+    private volatile boolean closing;
+
+    // ✅ 드라이버 스레드 전용 입력 상태
+    private int seq;
+    private double x;
+    private double baseX;
+    private boolean facingRight;
+    private long lastSendMs;
+    private long nextBurstMs;
+    private int burstLeft;
+    private long nextChatMs;
+
+    // ✅ 지연 측정용: 위치를 바꾼 move 1건과 보낸 시각 (state 에 그 위치가 보이면 1건 기록)
+    //    위치가 안 바뀌는 입력(하트비트/attack)은 어느 state 에 반영됐는지 알 수 없어서 측정 안 함
+    private double pendingX = Double.NaN;
+    private long pendingAt;
+    private double shownX = Double.NaN; // 마지막 state 에 보인 내 위치
+
+    BotClient(URI uri, String room, String nickname, InputPattern pattern, LoadStats stats) {
+        super(uri);
+        this.room = room;
+        this.nickname = nickname;
+        this.pattern = pattern;
+        this.stats = stats;
+    }
+
+    @Override
+    public void onOpen(ServerHandshake handshake) {
+        opened = true;
+        stats.connected.incrementAndGet();
+        send(new Msg("join", room, null, nickname, 0, 0, false, false, null, 0));
+    }
+
+    @Override
+    public void onMessage(String message) {
+        stats.received.increment();
+        try {
+            JsonNode node = MAPPER.readTree(message);
+            String type = node.path("type").asText(null);
+
+            if (type == null) {
+                stats.states.increment();
+                onState(MAPPER.treeToValue(node, GameState.class));
+                return;
+            }
+
+            switch (type) {
+                case "assign" -> onAssign(node.path("playerId").asText());
+                case "chat" -> stats.chats.increment();
+                case "chatBatch" -> stats.chats.add(node.path("lines").size());
+                case "error" -> stats.serverErrors.increment();
+                default -> { }
+            }
+        } catch (Exception e) {
+            stats.socketErrors.increment();
+        }
+    }
+
+    private void onAssign(String id) {
+        stats.assigned.incrementAndGet();
+        // 스폰 근처에서만 움직여서 서로 닿지 않게 (득점/리스폰 락이 지연 측정을 흐리지 않도록)
+        synchronized (this) {
+            baseX = "p1".equals(id) ? 100 : 650;
+            x = baseX;
+            facingRight = "p1".equals(id);
+            long now = System.currentTimeMillis();
+            nextBurstMs = now + ThreadLocalRandom.current().nextLong(BURST_EVERY_MS);
+            nextChatMs = now + ThreadLocalRandom.current().nextLong(pattern.chatIntervalMs());
+        }
+        playerId = id;
+    }
+
+    private void onState(GameState s) {
+        String id = playerId;
+        if (id == null) return;
+
+        Player me = "p1".equals(id) ? s.p1() : s.p2();
+        if (me == null) return;
+
+        synchronized (this) {
+            shownX = me.x();
+            if (pendingAt != 0 && Math.abs(me.x() - pendingX) < 0.01) {
+                stats.stateLatency.record(System.nanoTime() - pendingAt);
+                pendingAt = 0;
+            }
+        }
+    }
+
+    /** 드라이버가 주기적으로 호출 */
+    void step(long nowMs) {
+        if (playerId == null || !isOpen()) return;
+
+        synchronized (this) {
+            if (pattern.attacks() && nowMs >= nextBurstMs) {
+                burstLeft = BURST_SIZE;
+                nextBurstMs = nowMs + BURST_EVERY_MS;
+            }
+            if (burstLeft > 0) {
+                burstLeft--;
+                sendInput("attack", true, nowMs);
+                return;
+            }
+
+            if (pattern.chats() && nowMs >= nextChatMs) {
+                nextChatMs = nowMs + pattern.chatIntervalMs();
+                send(new Msg("chat", room, playerId, nickname, 0, 0, false, false, "gg " + seq, 0));
+            }
+
+            if (pattern.moves()) {
+                x = baseX + ThreadLocalRandom.current().nextInt(50);
+                sendInput("move", false, nowMs);
+            } else if (nowMs - lastSendMs >= HEARTBEAT_MS) {
+                sendInput("move", false, nowMs); // 하트비트 (위치 그대로)
+            }
+        }
+    }
+
+    private void sendInput(String type, boolean attacking, long nowMs) {
+        lastSendMs = nowMs;
+
+        long t = System.nanoTime();
+        boolean free = pendingAt == 0 || t - pendingAt > STALE_SAMPLE_NANOS;
+        if (free && Math.abs(x - shownX) >= 0.01) {
+            pendingX = x;
+            pendingAt = t;
+        }
+        send(new Msg(type, room, playerId, nickname, x, 400, facingRight, attacking, null, ++seq));
+    }
+
+    private void send(Msg msg) {
+        try {
+            send(MAPPER.writeValueAsString(msg));
+            stats.sent.increment();
+        } catch (Exception e) {
+            stats.socketErrors.increment();
+        }
+    }
+
+    void shutdown() {
+        closing = true;
+        close();
+    }
+
+    @Override
+    public void onClose(int code, String reason, boolean remote) {
+        if (!opened) {
+            stats.connectFailures.increment();
+            return;
+        }
+        stats.connected.decrementAndGet();
+        if (!closing) stats.unexpectedCloses.increment();
+    }
+
+    @Override
+    public void onError(Exception ex) {
+        stats.socketErrors.increment();
+    }
+}
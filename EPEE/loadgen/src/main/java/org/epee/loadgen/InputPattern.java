@@ -0,0 +1,41 @@
+package org.epee.loadgen;
+
+import java.util.Locale;
+
+/**
+ * 봇 입력 패턴 (--pattern=...).
+ * <ul>
+ *   <li>IDLE  : 가만히 서서 하트비트 move 만 (실제 클라처럼 0.25초마다)</li>
+ *   <li>MOVE  : 매 스텝 위치를 바꿔서 move 연타</li>
+ *   <li>ATTACK: move + 1초마다 attack 3연타</li>
+ *   <li>CHAT  : 하트비트 + 2초마다 채팅</li>
+ *   <li>MIXED : move + attack 연타 + 5초마다 채팅</li>
+ * </ul>
+ */
+enum InputPattern {
+    IDLE,
+    MOVE,
+    ATTACK,
+    CHAT,
+    MIXED;
+
+    static InputPattern parse(String s) {
+        return valueOf(s.trim().toUpperCase(Locale.ROOT));
+    }
+
+    boolean moves() {
+        return this == MOVE || this == ATTACK || this == MIXED;
+    }
+
+    boolean attacks() {
+        return this == ATTACK || this == MIXED;
+    }
+
+    boolean chats() {
+        return this == CHAT || this == MIXED;
+    }
+
+    long chatIntervalMs() {
+        return this == CHAT ? 2000 : 5000;
+    }
+}
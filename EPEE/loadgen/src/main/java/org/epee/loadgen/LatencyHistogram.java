@@ -0,0 +1,53 @@
+package org.epee.loadgen;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 0.1ms 단위 고정 버킷 히스토그램 (0 ~ 1초, 넘으면 마지막 버킷).
+ * 봇 수천 개의 수신 스레드가 동시에 기록하므로 락 없이 버킷별 원자 증가만 한다.
+ */
+final class LatencyHistogram {
+
+    private static final long BUCKET_NANOS = 100_000L; // 0.1ms
+    private static final int BUCKETS = 10_000;          // 1초
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS + 1);
+
+    void record(long nanos) {
+        int i = (int) Math.min(Math.max(nanos, 0) / BUCKET_NANOS, BUCKETS);
+        counts.incrementAndGet(i);
+    }
+
+    long[] snapshot() {
+        long[] out = new long[counts.length()];
+        for (int i = 0; i < out.length; i++) out[i] = counts.get(i);
+        return out;
+    }
+
+    /** 두 스냅샷 사이 구간만 */
+    static long[] diff(long[] now, long[] before) {
+        long[] out = new long[now.length];
+        for (int i = 0; i < out.length; i++) out[i] = now[i] - before[i];
+        return out;
+    }
+
+    static long total(long[] counts) {
+        long n = 0;
+        for (long c : counts) n += c;
+        return n;
+    }
+
+    /** @return 백분위 값 (ms), 샘플 없으면 NaN */
+    static double percentileMs(long[] counts, double p) {
+        long n = total(counts);
+        if (n == 0) return Double.NaN;
+
+        long rank = (long) Math.ceil(p / 100.0 * n);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return (i + 1) * BUCKET_NANOS / 1_000_000.0; // 버킷 상한
+        }
+        return BUCKETS * BUCKET_NANOS / 1_000_000.0;
+    }
+}
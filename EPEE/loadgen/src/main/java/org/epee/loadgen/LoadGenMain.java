@@ -0,0 +1,143 @@
+package org.epee.loadgen;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 헤드리스 부하 생성기: 방 N개 x 봇 2명이 GameServer 에 붙어서 패턴대로 입력을 보내고,
+ * 초당 송수신 메시지 수 / state 반영 지연 백분위 / 에러 수를 1초마다 출력한다.
+ *
+ * <pre>
+ * --url=ws://localhost:8080   --rooms=100       --pattern=idle|move|attack|chat|mixed
+ * --rate=30 (봇당 초당 스텝)  --duration=30 (초) --ramp=200 (초당 접속 수)
+ * </pre>
+ *
+ * 봇 1명 = WebSocketClient 1개 (라이브러리가 연결마다 스레드를 쓰므로 수천 방이면 -Xss 를 줄일 것).
+ */
+public class LoadGenMain {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opt = parse(args);
+        URI uri = URI.create(opt.getOrDefault("url", "ws://localhost:8080"));
+        int rooms = Integer.parseInt(opt.getOrDefault("rooms", "100"));
+        InputPattern pattern = InputPattern.parse(opt.getOrDefault("pattern", "mixed"));
+        int rate = Integer.parseInt(opt.getOrDefault("rate", "30"));
+        int durationSec = Integer.parseInt(opt.getOrDefault("duration", "30"));
+        int ramp = Integer.parseInt(opt.getOrDefault("ramp", "200"));
+
+        System.out.printf(Locale.ROOT, "loadgen: %s rooms=%d bots=%d pattern=%s rate=%d/s duration=%ds%n",
+                uri, rooms, rooms * 2, pattern, rate, durationSec);
+
+        LoadStats stats = new LoadStats();
+        List<BotClient> bots = new ArrayList<>(rooms * 2);
+
+        ScheduledExecutorService driver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "loadgen-driver");
+            t.setDaemon(true);
+            return t;
+        });
+
+        // ✅ 접속은 ramp 속도로 나눠서 (서버 accept 폭주 방지)
+        long connectGapNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, ramp);
+        for (int i = 0; i < rooms; i++) {
+            String room = "load-" + i;
+            for (int p = 0; p < 2; p++) {
+                BotClient bot = new BotClient(uri, room, "bot" + i + "-" + p, pattern, stats);
+                bots.add(bot);
+                bot.connect();
+                TimeUnit.NANOSECONDS.sleep(connectGapNanos);
+            }
+        }
+
+        // ✅ 스텝은 드라이버 스레드 하나가 모든 봇을 돌림 (전송 자체는 각 소켓의 쓰기 큐로)
+        List<BotClient> all = List.copyOf(bots);
+        driver.scheduleAtFixedRate(() -> {
+            long now = System.currentTimeMillis();
+            for (BotClient bot : all) {
+                try {
+                    bot.step(now);
+                } catch (Exception e) {
+                    stats.socketErrors.increment();
+                }
+            }
+        }, 0, TimeUnit.SECONDS.toNanos(1) / Math.max(1, rate), TimeUnit.NANOSECONDS);
+
+        Report report = new Report(stats);
+        for (int s = 1; s <= durationSec; s++) {
+            TimeUnit.SECONDS.sleep(1);
+            report.interval(s);
+        }
+
+        driver.shutdownNow();
+        for (BotClient bot : bots) bot.shutdown();
+        report.summary(durationSec);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> out = new HashMap<>();
+        for (String a : args) {
+            if (!a.startsWith("--")) throw new IllegalArgumentException("unknown argument: " + a);
+            int eq = a.indexOf('=');
+            if (eq < 0) out.put(a.substring(2), "true");
+            else out.put(a.substring(2, eq), a.substring(eq + 1));
+        }
+        return out;
+    }
+
+    /** 1초 구간 + 전체 요약 출력 */
+    private static final class Report {
+        private final LoadStats stats;
+        private long lastSent;
+        private long lastReceived;
+        private long lastStates;
+        private long[] lastLatency;
+
+        Report(LoadStats stats) {
+            this.stats = stats;
+            this.lastLatency = stats.stateLatency.snapshot();
+        }
+
+        void interval(int second) {
+            long sent = stats.sent.sum();
+            long received = stats.received.sum();
+            long states = stats.states.sum();
+            long[] latency = stats.stateLatency.snapshot();
+            long[] window = LatencyHistogram.diff(latency, lastLatency);
+
+            System.out.printf(Locale.ROOT,
+                    "[%3ds] bots=%d/%d sent=%d/s recv=%d/s states=%d/s latency p50=%.1fms p99=%.1fms errors=%d%n",
+                    second, stats.assigned.get(), stats.connected.get(),
+                    sent - lastSent, received - lastReceived, states - lastStates,
+                    LatencyHistogram.percentileMs(window, 50), LatencyHistogram.percentileMs(window, 99),
+                    stats.errors());
+
+            lastSent = sent;
+            lastReceived = received;
+            lastStates = states;
+            lastLatency = latency;
+        }
+
+        void summary(int seconds) {
+            long[] latency = stats.stateLatency.snapshot();
+            System.out.println("---- summary ----");
+            System.out.printf(Locale.ROOT, "messages sent     : %d (%.0f/s)%n", stats.sent.sum(), stats.sent.sum() / (double) seconds);
+            System.out.printf(Locale.ROOT, "messages received : %d (%.0f/s)%n", stats.received.sum(), stats.received.sum() / (double) seconds);
+            System.out.printf(Locale.ROOT, "state updates     : %d (%.0f/s)%n", stats.states.sum(), stats.states.sum() / (double) seconds);
+            System.out.printf(Locale.ROOT, "chat received     : %d%n", stats.chats.sum());
+            System.out.printf(Locale.ROOT, "state latency     : n=%d p50=%.1fms p90=%.1fms p99=%.1fms p99.9=%.1fms%n",
+                    LatencyHistogram.total(latency),
+                    LatencyHistogram.percentileMs(latency, 50), LatencyHistogram.percentileMs(latency, 90),
+                    LatencyHistogram.percentileMs(latency, 99), LatencyHistogram.percentileMs(latency, 99.9));
+            System.out.printf(Locale.ROOT, "errors            : connect=%d server=%d socket=%d closed=%d%n",
+                    stats.connectFailures.sum(), stats.serverErrors.sum(),
+                    stats.socketErrors.sum(), stats.unexpectedCloses.sum());
+        }
+    }
+}
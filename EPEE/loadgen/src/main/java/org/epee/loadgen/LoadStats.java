@@ -0,0 +1,29 @@
+package org.epee.loadgen;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/** 전체 봇이 공유하는 카운터 (봇 스레드들이 동시에 증가) */
+final class LoadStats {
+
+    final LongAdder sent = new LongAdder();
+    final LongAdder received = new LongAdder();
+    final LongAdder states = new LongAdder();
+    final LongAdder chats = new LongAdder();
+
+    // 에러 종류별
+    final LongAdder connectFailures = new LongAdder();
+    final LongAdder serverErrors = new LongAdder();   // {"type":"error"} (Room full 등)
+    final LongAdder socketErrors = new LongAdder();   // onError
+    final LongAdder unexpectedCloses = new LongAdder();
+
+    final AtomicInteger connected = new AtomicInteger();
+    final AtomicInteger assigned = new AtomicInteger();
+
+    // ✅ move 전송 -> 그 위치가 반영된 state 수신까지
+    final LatencyHistogram stateLatency = new LatencyHistogram();
+
+    long errors() {
+        return connectFailures.sum() + serverErrors.sum() + socketErrors.sum() + unexpectedCloses.sum();
+    }
+}
@@ -0,0 +1,20 @@
+package org.epee.server;
+
+/**
+ * 서버 시뮬레이션 시계. 판정/득점/리스폰 락/렉 보정 등 규칙의 시각은 전부 {@link #nanos()} (단조, ns) 기준이라
+ * 벽시계가 NTP 로 튀어도 공격 윈도우가 늘거나 줄지 않는다. 클라에게 보내는 gameStartTime 만 {@link #wallMillis()}.
+ * 운영은 {@link #system()}, 테스트/리플레이는 손으로 돌리는 {@link ManualClock}.
+ */
+public interface Clock {
+
+    /** 단조 증가 시각 (ns), 값 자체는 의미 없고 차이만 씀 */
+    long nanos();
+
+    /** 표시용 벽시계 (epoch ms) */
+    long wallMillis();
+
+    /** System.nanoTime 기반 (서버 시작 시점이 0) */
+    static Clock system() {
+        return new SystemClock();
+    }
+}
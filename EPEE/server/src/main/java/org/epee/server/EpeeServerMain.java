@@ -1,8 +1,42 @@
 package org.epee.server;
 
+import java.nio.file.Path;
+
 public class EpeeServerMain {
     public static void main(String[] args) {
-        GameServer server = new GameServer(8080);
+        int tickRate = Integer.getInteger("epee.tickRate", GameServer.DEFAULT_TICK_RATE);    // -Depee.tickRate=30
+        int lanes = Integer.getInteger("epee.lanes", GameServer.DEFAULT_LANES);              // -Depee.lanes=4
+        ThreadMode threads = ThreadMode.parse(System.getProperty("epee.threads"));           // -Depee.threads=virtual (JDK 21+)
+        int metricsPort = Integer.getInteger("epee.metricsPort", 0);                          // -Depee.metricsPort=9100
+        String replayDir = System.getProperty("epee.replayDir");                              // -Depee.replayDir=replays
+        Integer segmentMb = Integer.getInteger("epee.replaySegmentMb");                        // -Depee.replaySegmentMb=16 (기본: 모드별)
+        GameServer server = new GameServer(8080, tickRate, lanes, threads);
+
+        // ✅ 리플레이 기록은 디렉터리를 준 경우만
+        if (replayDir != null) {
+            if (segmentMb != null) server.enableReplay(Path.of(replayDir), segmentMb << 20);
+            else server.enableReplay(Path.of(replayDir));
+            System.out.println("Recording replays under " + Path.of(replayDir).toAbsolutePath());
+
+            // 종료(Ctrl+C) 시 레인을 멈춰서 마지막 세그먼트에 끝 표시를 쓰고 디스크로 내리도록
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.stop(1000);
+                } catch (InterruptedException ignored) {}
+            }, "replay-shutdown"));
+        }
+
+        // ✅ 계측: JMX 는 항상, 텍스트 스크랩 엔드포인트는 포트를 준 경우만
+        server.getMetrics().registerJmx("org.epee:type=GameServer,port=8080");
+        if (metricsPort > 0) {
+            try {
+                MetricsEndpoint.start(metricsPort, server.getMetrics());
+                System.out.println("Metrics on http://127.0.0.1:" + metricsPort + "/metrics");
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
         server.start();
         System.out.println("ÉPÉE WebSocket Server started on ws://localhost:8080");
     }
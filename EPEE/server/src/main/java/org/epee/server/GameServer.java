@@ -1,351 +1,1072 @@
 package org.epee.server;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.epee.common.FencingRules;
 import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
 import org.java_websocket.handshake.ClientHandshake;
 import org.java_websocket.server.WebSocketServer;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class GameServer extends WebSocketServer {
 
+    public static final int DEFAULT_TICK_RATE = 60;
+    public static final int DEFAULT_LANES = Runtime.getRuntime().availableProcessors();
+
+    // ✅ 델타 기준으로 쓸 수 있는 최근 스냅샷 개수 (이보다 오래된 ack 면 키프레임)
+    static final int SNAPSHOT_HISTORY = 32;
+
+    // ✅ 렉 보정: 방어자를 공격자 화면 시점으로 최대 이만큼만 되감음 (고지연 클라가 과거를 너무 멀리 못 찌르게)
+    //    보간 지연 100ms + RTT 150ms 까지
+    static final long MAX_REWIND_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    // ✅ 클라가 상대를 이만큼 과거로(스냅샷 사이 보간) 그림, assign 으로 알려줌
+    static final long INTERP_DELAY_MS = 100;
+
+    // ✅ 이보다 큰 RTT 샘플은 버림 (오래 묵은 ack)
+    static final long RTT_SAMPLE_MAX_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // ✅ 채팅은 방마다 이 시간 동안 모아서 프레임 1개로 (창 하나에 최대 CHAT_BATCH_MAX 줄, 넘치면 버림)
+    static final long CHAT_WINDOW_MS = 100;
+    static final int CHAT_BATCH_MAX = 32;
+
     private final ObjectMapper mapper = new ObjectMapper();
 
-    private static class RoomState {
-        Player p1 = null;
-        Player p2 = null;
+    // ✅ 판정/득점/리스폰 락/RTT 시각 (운영: nanoTime, 테스트/리플레이: ManualClock)
+    private final Clock clock;
 
-        int score1 = 0;
-        int score2 = 0;
+    // ✅ 고정 주기 시뮬레이션: 입력은 방에 쌓아두고 틱마다 한 번 판정 + 한 번 브로드캐스트
+    private final int tickRate;
+
+    // ✅ 방 이름 해시로 레인 고정 -> 한 방의 상태는 항상 같은 스레드 하나만 만짐 (락 없음)
+    private final ThreadMode threadMode;
+    private final RoomLane[] lanes;                                                   // PLATFORM
+    private final Map<String, RoomLane> roomLanes = new ConcurrentHashMap<>();        // VIRTUAL: 방마다 1개
+    private final ThreadFactory roomThreads;
+
+    // ✅ 블로킹 부수 작업 (로그/저장 등) - 소켓 스레드나 레인을 멈추지 않도록 따로 실행
+    private final ExecutorService sideWork;
+
+    // ✅ 리플레이 기록 (null = 끔), 레인마다 자기 ReplayLog 1개에만 씀
+    private Path replayDir = null;
+    private int replaySegmentBytes = ReplayLog.LANE_SEGMENT_BYTES;
+    private final AtomicInteger replayWriters = new AtomicInteger(); // VIRTUAL 레인 로그 이름 번호
 
-        // ✅ "최근 입력" 기준으로 우선순위 판단 (move spam 때문에 update 시간 쓰면 안됨)
-        long lastP1Input = 0;
-        long lastP2Input = 0;
+    // ✅ 벤치마크(org.epee.server 패키지)에서 직접 돌릴 수 있도록 package-private
+    static final class RoomState {
+        final String name;
 
-        // ✅ 공격 시작 시각(서버 기준) - 공격 윈도우 & bladeOffset 계산용
-        long p1AttackStart = -1;
-        long p2AttackStart = -1;
+        // ✅ 이 방에 붙어있는 소켓들 (브로드캐스트 시 전체 연결을 훑지 않도록, 레인 스레드 전용)
+        //    자리 2개뿐이라 리스트, 틱마다 인덱스로 돌아서 반복자도 안 만듦
+        final List<WebSocket> members = new ArrayList<>(2);
 
-        // ✅ attacking true/false 전환 감지용
-        boolean p1WasAttacking = false;
-        boolean p2WasAttacking = false;
+        // ✅ 자리 2개는 방이 살아있는 동안 재사용 (입력마다 새 객체 안 만듦)
+        final PlayerSlot p1 = PlayerSlot.p1();
+        final PlayerSlot p2 = PlayerSlot.p2();
+
+        int score1 = 0;
+        int score2 = 0;
 
         // ✅ 득점 직후 잠깐 move 무시(리스폰 덮임 방지)
         long respawnLockUntil = 0;
 
         // 기존
-        long lastScoreTime = 0;
+        long lastScoreTime = FencingRules.NO_SCORE; // 0 이 아님 (시계가 0 부터라 첫 250ms 득점이 막힘)
         long gameStartTime = 0;
+
+        // ✅ 이번 틱에 상태가 바뀌었으면 스냅샷 전송
+        boolean dirty = false;
+
+        // ✅ 입장/퇴장 직후엔 닉네임이 필요하므로 바이너리 클라에게도 JSON 스냅샷
+        boolean rosterChanged = false;
+        int snapshotSeq = 0;
+
+        // ✅ 최근 바이너리 스냅샷 (seq % SNAPSHOT_HISTORY 위치, 델타 기준점)
+        final WireSnapshot[] history = new WireSnapshot[SNAPSHOT_HISTORY];
+        final long[] sentAt = new long[SNAPSHOT_HISTORY]; // 같은 위치 스냅샷의 전송 시각 (RTT 추정용)
+
+        // ✅ 최근 위치 기록 (렉 보정 판정용)
+        final PositionHistory positions = new PositionHistory();
+
+        // ✅ 아직 안 보낸 채팅 (chatFlushAt 이 지난 틱에서 한 프레임으로 전송)
+        final List<ChatLine> chatBatch = new ArrayList<>();
+        long chatFlushAt = 0;
+
+        final RoomMetrics metrics;
+
+        // ✅ 레인의 리플레이 로그 (기록 안 하면 null) + 그 로그 안의 방 번호
+        ReplayLog replay = null;
+        int replayId = 0;
+
+        RoomState(String name) {
+            this.name = name;
+            this.metrics = new RoomMetrics(name);
+            for (int i = 0; i < history.length; i++) history[i] = new WireSnapshot();
+        }
+
+        WireSnapshot snapshot(int seq) {
+            WireSnapshot s = history[Math.floorMod(seq, SNAPSHOT_HISTORY)];
+            return s.seq == seq ? s : null;
+        }
+
+        PlayerSlot slotOf(WebSocket conn) {
+            if (p1.present && conn == p1.conn) return p1;
+            if (p2.present && conn == p2.conn) return p2;
+            return null;
+        }
     }
 
-    private final Map<String, RoomState> rooms = new ConcurrentHashMap<>();
+    record ChatLine(String senderId, String nickname, String text) {}
+
+    // ✅ 입력 1건 = 레인 명령 1개 (at = 서버 수신 시각, seq = 클라 입력 번호, 없으면 0)
+    //    람다 + 입력 레코드 2개 대신 이 객체 하나만 만들어서 inbox 에 넣음
+    private final class InputCommand implements Runnable {
+        final RoomLane lane;
+        final WebSocket conn;
+        final String room;
+        final boolean attack;
+        final int seq;
+        final double x;
+        final double y;
+        final boolean facingRight;
+        final boolean attacking;
+        final long at;
+
+        InputCommand(RoomLane lane, WebSocket conn, String room, boolean attack, int seq,
+                double x, double y, boolean facingRight, boolean attacking, long at) {
+            this.lane = lane;
+            this.conn = conn;
+            this.room = room;
+            this.attack = attack;
+            this.seq = seq;
+            this.x = x;
+            this.y = y;
+            this.facingRight = facingRight;
+            this.attacking = attacking;
+            this.at = at;
+        }
+
+        @Override
+        public void run() {
+            RoomState r = lane.rooms.get(room);
+            if (r == null) return;
+            r.metrics.messagesIn.increment();
+
+            PlayerSlot p = r.slotOf(conn);
+            if (p == null) return;
+
+            // ✅ 적용 전에 받은 그대로 기록 (버려지는 입력도 리플레이에서 똑같이 버려지도록)
+            if (r.replay != null) {
+                if (attack) r.replay.attack(r.replayId, at, p, seq);
+                else r.replay.move(r.replayId, at, p, seq, x, y, facingRight, attacking);
+            }
+
+            if (attack) applyAttack(r, p, seq, at);
+            else applyMove(r, p, seq, x, y, facingRight, attacking, at);
+        }
+    }
+
+    /**
+     * 방 실행 레인: 스레드 1개가 자기 방들만 소유하고 돌린다.
+     * 소켓 스레드들은 inbox(MPSC 큐)에 명령만 넣고, 레인이 틱마다 비운 뒤 판정/전송까지 처리한다.
+     * VIRTUAL 모드에서는 방 1개 전용 레인(actor)이고, 방이 비면 스스로 roomLanes 에서 빠지고 끝난다.
+     */
+    private final class RoomLane implements Runnable {
+        final Queue<Runnable> inbox = new ConcurrentLinkedQueue<>();
+        final Map<String, RoomState> rooms = new HashMap<>(); // 레인 스레드 전용
+        final List<RoomState> ticking = new ArrayList<>(); // rooms 와 같은 방들, 틱마다 인덱스로 돎 (반복자 할당 없음)
+        final SnapshotFanOut fanOut = new SnapshotFanOut(GameServer.this);
+        final String room; // VIRTUAL 전용 레인이면 방 이름, 공유 레인이면 null
+        final Thread thread;
+        final String logName;
+        ReplayLog replay = null; // 레인 스레드가 시작할 때 열고 끝날 때 닫음 (파일 작업은 둘 다 부수 작업 스레드에서)
+        volatile boolean running = true;
+
+        RoomLane(int index) {
+            this.room = null;
+            this.logName = "lane-" + index;
+            thread = new Thread(this, "room-lane-" + index);
+            thread.setDaemon(true);
+        }
+
+        RoomLane(String room) {
+            this.room = room;
+            this.logName = "room-" + replayWriters.incrementAndGet(); // 방 이름은 파일 이름으로 못 쓸 수 있음
+            thread = roomThreads.newThread(this);
+        }
+
+        void submit(Runnable cmd) {
+            inbox.offer(cmd);
+        }
+
+        @Override
+        public void run() {
+            long period = TimeUnit.SECONDS.toNanos(1) / tickRate;
+            long next = System.nanoTime() + period;
+            if (replayDir != null) replay = ReplayLog.open(replayDir, logName, replaySegmentBytes, replayExecutor(), metrics);
+
+            while (running) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(this, wait);
+                    continue;
+                }
+
+                // ✅ 고정 주기 유지, 한 주기 이상 밀렸으면 따라잡지 않고 다음 주기부터
+                next += period;
+                long behind = System.nanoTime() - next;
+                if (behind > 0) next += (behind / period + 1) * period;
+
+                drain();
+                tickRooms(this, clock.nanos());
+
+                if (room != null && rooms.isEmpty() && retire()) break;
+            }
+            if (replay != null) replay.close();
+        }
+
+        // ✅ inbox 가 빈 상태에서만 맵에서 제거 (compute 안이라 동시에 들어오는 join 과 경합 없음)
+        private boolean retire() {
+            roomLanes.computeIfPresent(room, (k, l) -> l == this && inbox.isEmpty() ? null : l);
+            return roomLanes.get(room) != this;
+        }
+
+        private void drain() {
+            Runnable cmd;
+            while ((cmd = inbox.poll()) != null) {
+                long t0 = System.nanoTime();
+                try {
+                    cmd.run();
+                } catch (Exception ex) {
+                    ex.printStackTrace(); // 명령 하나의 예외가 레인을 죽이지 않도록
+                }
+                metrics.handlerNanos.record(System.nanoTime() - t0);
+            }
+        }
+
+        void shutdown() throws InterruptedException {
+            running = false;
+            LockSupport.unpark(thread);
+            thread.join(1000);
+        }
+    }
+
+    private final ServerMetrics metrics = new ServerMetrics();
+
     private final Map<WebSocket, String> socketToRoom = new ConcurrentHashMap<>();
-    private final Map<WebSocket, String> socketToPlayerId = new ConcurrentHashMap<>();
+    final Set<WebSocket> binaryWire = ConcurrentHashMap.newKeySet(); // 접속 시 bin1 협상된 소켓
+    private final Map<WebSocket, InputLimiter> limiters = new ConcurrentHashMap<>(); // 연결별 메시지 종류별 토큰 버킷
+    final Map<WebSocket, AckState> ackedSnapshot = new ConcurrentHashMap<>(); // 바이너리 클라가 적용한 마지막 스냅샷
+
+    // ✅ 소켓 스레드가 쓰고 레인이 읽음 (at 을 먼저 쓰고 seq 를 나중에 써서, 새 seq 를 본 레인은 새 at 도 봄)
+    static final class AckState {
+        volatile long at;  // ack 수신 시각 (Clock ns)
+        volatile int seq;  // 0 = 아직 없음
+
+        void update(int seq, long at) {
+            this.at = at;
+            this.seq = seq;
+        }
+    }
+
+    // ✅ 소켓 워커 스레드마다 디코딩용 객체 1개 재사용
+    private final ThreadLocal<InboundMessage> inbound = ThreadLocal.withInitial(InboundMessage::new);
 
     public GameServer(int port) {
+        this(port, DEFAULT_TICK_RATE);
+    }
+
+    public GameServer(int port, int tickRate) {
+        this(port, tickRate, DEFAULT_LANES);
+    }
+
+    public GameServer(int port, int tickRate, int laneCount) {
+        this(port, tickRate, laneCount, ThreadMode.PLATFORM);
+    }
+
+    /** laneCount 는 PLATFORM 모드에서만 사용 (VIRTUAL 은 방마다 레인) */
+    public GameServer(int port, int tickRate, int laneCount, ThreadMode threadMode) {
+        this(port, tickRate, laneCount, threadMode, Clock.system());
+    }
+
+    public GameServer(int port, int tickRate, int laneCount, ThreadMode threadMode, Clock clock) {
         super(new InetSocketAddress(port));
+        if (tickRate <= 0) throw new IllegalArgumentException("tickRate must be positive: " + tickRate);
+        if (laneCount <= 0) throw new IllegalArgumentException("laneCount must be positive: " + laneCount);
+        if (threadMode == ThreadMode.VIRTUAL && !VirtualThreads.isSupported()) {
+            throw new IllegalStateException("ThreadMode.VIRTUAL requires JDK 21+ (running " + Runtime.version() + ")");
+        }
+        this.tickRate = tickRate;
+        this.threadMode = threadMode;
+        this.clock = clock;
+
+        if (threadMode == ThreadMode.VIRTUAL) {
+            this.lanes = new RoomLane[0];
+            this.roomThreads = VirtualThreads.factory("room-");
+            this.sideWork = VirtualThreads.perTaskExecutor();
+        } else {
+            this.lanes = new RoomLane[laneCount];
+            this.roomThreads = null;
+            for (int i = 0; i < laneCount; i++) lanes[i] = new RoomLane(i);
+            this.sideWork = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "side-work");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public int getLaneCount() {
+        return threadMode == ThreadMode.VIRTUAL ? roomLanes.size() : lanes.length;
+    }
+
+    public ThreadMode getThreadMode() {
+        return threadMode;
+    }
+
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * 모든 방의 입력/틱/스냅샷을 dir/run-{시작 시각}/ 아래 레인별 세그먼트 파일로 기록 (start 전에 호출).
+     * 레인은 매핑된 버퍼에 쓰기만 하고, 세그먼트 생성/디스크 반영은 부수 작업 스레드에서 한다.
+     * 세그먼트 크기는 스레드 모드에 맞춤 (PLATFORM: 레인 로그 64 MB, VIRTUAL: 방마다 로그라 1 MB).
+     */
+    public void enableReplay(Path dir) {
+        enableReplay(dir, threadMode == ThreadMode.VIRTUAL ? ReplayLog.ROOM_SEGMENT_BYTES : ReplayLog.LANE_SEGMENT_BYTES);
+    }
+
+    /** 세그먼트 크기를 직접 지정 (-Depee.replaySegmentMb) */
+    public void enableReplay(Path dir, int segmentBytes) {
+        this.replayDir = dir.resolve("run-" + System.currentTimeMillis());
+        this.replaySegmentBytes = segmentBytes;
+    }
+
+    /** 블로킹 가능한 부수 작업 실행 (VIRTUAL: 가상 스레드 1개씩, PLATFORM: 캐시 풀) */
+    public void runSideWork(Runnable task) {
+        try {
+            sideWork.execute(task);
+        } catch (RejectedExecutionException ignored) {} // 종료 중
+    }
+
+    // ✅ 세그먼트 준비/마무리용, 종료 중이라 부수 작업이 거절되면 그 자리에서 실행 (기다리는 레인이 멈추지 않도록)
+    private Executor replayExecutor() {
+        return task -> {
+            try {
+                sideWork.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+        };
+    }
+
+    // ✅ 방이 돌고 있는 레인 (VIRTUAL 에서 아직/이미 없으면 null)
+    private RoomLane laneOf(String room) {
+        if (threadMode == ThreadMode.PLATFORM) return lanes[Math.floorMod(room.hashCode(), lanes.length)];
+        return roomLanes.get(room);
+    }
+
+    // ✅ 방 레인으로 명령 전달 (VIRTUAL 에서 레인이 없으면 create 일 때만 만들고, 아니면 버림)
+    private void submit(String room, boolean create, Function<RoomLane, Runnable> cmd) {
+        if (create && threadMode == ThreadMode.VIRTUAL) {
+            // compute 안에서 넣어야 은퇴 중인 레인(retire)과 엇갈리지 않음
+            roomLanes.compute(room, (k, lane) -> {
+                boolean fresh = lane == null;
+                if (fresh) lane = new RoomLane(room);
+                lane.submit(cmd.apply(lane));
+                if (fresh) lane.thread.start();
+                return lane;
+            });
+        } else {
+            RoomLane lane = laneOf(room);
+            if (lane != null) lane.submit(cmd.apply(lane));
+        }
     }
 
     @Override
     public void onOpen(WebSocket conn, ClientHandshake handshake) {
-        System.out.println("Client connected: " + conn.getRemoteSocketAddress());
+        metrics.connections.increment();
+        limiters.put(conn, new InputLimiter(clock.nanos()));
+        Object addr = conn.getRemoteSocketAddress();
+        runSideWork(() -> System.out.println("Client connected: " + addr)); // 콘솔 출력도 블로킹이라 소켓 스레드 밖에서
+
+        // ✅ 바이너리 프레임 협상 (헤더 없으면 JSON 유지)
+        if (WireFormat.VERSION.equals(handshake.getFieldValue(WireFormat.HEADER))) {
+            binaryWire.add(conn);
+            ackedSnapshot.put(conn, new AckState());
+        }
     }
 
     @Override
     public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        metrics.connections.decrement();
         String room = socketToRoom.remove(conn);
-        String pid = socketToPlayerId.remove(conn);
+        binaryWire.remove(conn);
+        ackedSnapshot.remove(conn);
+        limiters.remove(conn);
 
         if (room != null) {
-            RoomState r = rooms.get(room);
-            if (r != null && pid != null) {
-                if ("p1".equals(pid)) r.p1 = null;
-                if ("p2".equals(pid)) r.p2 = null;
+            submit(room, false, lane -> () -> leave(lane, conn, room));
+        }
+    }
 
-                if (r.p1 == null && r.p2 == null) {
-                    rooms.remove(room);
-                } else {
-                    broadcastState(room);
-                }
-            }
+    // ✅ 레인 스레드에서 실행
+    private void leave(RoomLane lane, WebSocket conn, String room) {
+        RoomState r = lane.rooms.get(room);
+        if (r == null) return;
+
+        long now = clock.nanos();
+        r.members.remove(conn);
+        PlayerSlot slot = r.slotOf(conn);
+        if (slot != null) {
+            if (r.replay != null) r.replay.leave(r.replayId, now, slot);
+            slot.vacate();
+        }
+
+        if (!r.p1.present && !r.p2.present) {
+            lane.rooms.remove(room);
+            lane.ticking.remove(r);
+            metrics.closeRoom(r.metrics);
+            if (r.replay != null) r.replay.closeRoom(r.replayId, now);
+        } else {
+            r.dirty = true;
+            r.rosterChanged = true;
         }
     }
 
     @Override
     public void onMessage(WebSocket conn, String message) {
+        metrics.textMessagesIn.increment();
+        metrics.bytesIn.add(message.length());
         try {
-            Map<String, Object> map = mapper.readValue(message, Map.class);
-            String type = (String) map.get("type");
-
-            switch (type) {
-                case "join" -> handleJoin(conn, map);
-                case "move" -> handleMove(conn, map);
-                case "attack" -> handleAttack(conn, map);
-                case "chat" -> handleChat(conn, map);
+            long t0 = System.nanoTime();
+
+            // ✅ 디코딩 전에 type 만 보고 버킷 검사 (넘친 메시지는 파싱도 안 함)
+            InboundMessage.Type peeked = MessageDecoder.peekType(message);
+            if (peeked != null && !allow(conn, peeked)) return;
+
+            InboundMessage msg = inbound.get();
+            if (!MessageDecoder.decode(message, msg)) {
+                metrics.decodeErrors.increment();
+                return;
+            }
+            metrics.decodeNanos.record(System.nanoTime() - t0);
+            if (peeked == null && !allow(conn, msg.type)) return;
+
+            switch (msg.type) {
+                case JOIN -> handleJoin(conn, msg);
+                case MOVE -> handleMove(conn, msg);
+                case ATTACK -> handleAttack(conn, msg);
+                case CHAT -> handleChat(conn, msg);
+                default -> { }
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private void handleJoin(WebSocket conn, Map<String, Object> map) {
-        String room = (String) map.get("room");
-        String nickname = (String) map.get("nickname"); // ✅ 클라 join에서 nickname 사용
+    private void handleJoin(WebSocket conn, InboundMessage msg) {
+        String room = msg.room;
+        String nickname = msg.nickname; // ✅ 클라 join에서 nickname 사용
         if (nickname == null) nickname = "";
+        if (room == null) return;
 
-        rooms.putIfAbsent(room, new RoomState());
-        RoomState r = rooms.get(room);
+        // ✅ 이후 입력/채팅/퇴장을 같은 레인으로 보내기 위한 라우팅 정보만 여기서 기록
+        socketToRoom.put(conn, room);
 
-        String assigned;
+        String nick = nickname;
+        submit(room, true, lane -> () -> join(lane, conn, room, nick));
+    }
 
+    // ✅ 레인 스레드에서 실행 (방 생성/슬롯 배정)
+    private void join(RoomLane lane, WebSocket conn, String room, String nickname) {
+        long now = clock.nanos();
+        RoomState r = lane.rooms.get(room);
+        if (r == null) {
+            r = new RoomState(room);
+            lane.rooms.put(room, r);
+            lane.ticking.add(r);
+            metrics.openRoom(r.metrics);
+            if (lane.replay != null) {
+                r.replay = lane.replay;
+                r.replayId = lane.replay.openRoom(room, now);
+            }
+        }
+
+        PlayerSlot slot = seat(r, conn, nickname, now, clock.wallMillis());
+        if (slot == null) {
+            socketToRoom.remove(conn, room);
+            sendError(conn, "Room full");
+            return;
+        }
+        String assigned = slot.id;
+        if (r.replay != null) r.replay.join(r.replayId, now, slot);
+
+        if (!r.members.contains(conn)) r.members.add(conn);
+        r.dirty = true;
+        r.rosterChanged = true;
+
+        if (binaryWire.contains(conn)) {
+            send(conn, Map.of("type", "assign", "playerId", assigned, "wire", WireFormat.VERSION,
+                    "interpDelay", INTERP_DELAY_MS));
+        } else {
+            send(conn, Map.of("type", "assign", "playerId", assigned, "interpDelay", INTERP_DELAY_MS));
+        }
+    }
+
+    // ✅ 빈 자리에 앉힘 (리플레이 엔진도 같은 규칙으로 재현), 꽉 찼으면 null
+    //    startedAtMillis = 클라 표시용 경기 시작 시각 (벽시계, 판정에는 안 씀)
+    static PlayerSlot seat(RoomState r, WebSocket conn, String nickname, long now, long startedAtMillis) {
         // ✅ 새 매치 시작 느낌: 한쪽이라도 비어있으면 점수 리셋
-        if (r.p1 == null || r.p2 == null) {
+        if (!r.p1.present || !r.p2.present) {
             r.score1 = 0;
             r.score2 = 0;
-            r.lastP1Input = 0;
-            r.lastP2Input = 0;
-            r.p1AttackStart = -1;
-            r.p2AttackStart = -1;
-            r.p1WasAttacking = false;
-            r.p2WasAttacking = false;
+            r.p1.lastInput = 0;
+            r.p2.lastInput = 0;
+            r.p1.resetAttack();
+            r.p2.resetAttack();
             r.respawnLockUntil = 0;
-            r.lastScoreTime = 0;
+            r.lastScoreTime = FencingRules.NO_SCORE;
             r.gameStartTime = 0;
+            r.positions.clear();
         }
 
-        if (r.p1 == null) {
-            assigned = "p1";
-            r.p1 = new Player("p1", nickname, 100, 400, true, false);
-        } else if (r.p2 == null) {
-            assigned = "p2";
-            r.p2 = new Player("p2", nickname, 700, 400, false, false);
-            r.gameStartTime = System.currentTimeMillis(); // P2 입장 시 경기 시작
-        } else {
-            sendError(conn, "Room full");
-            return;
+        if (!r.p1.present) {
+            r.p1.occupy(conn, nickname);
+            return r.p1;
+        }
+        if (!r.p2.present) {
+            r.p2.occupy(conn, nickname);
+            r.gameStartTime = startedAtMillis; // P2 입장 시 경기 시작
+            return r.p2;
         }
+        return null;
+    }
 
-        socketToRoom.put(conn, room);
-        socketToPlayerId.put(conn, assigned);
+    // ✅ 바이너리 입력 프레임 (bin1 협상된 클라)
+    @Override
+    public void onMessage(WebSocket conn, ByteBuffer message) {
+        metrics.binaryMessagesIn.increment();
+        metrics.bytesIn.add(message.remaining());
 
-        send(conn, Map.of("type", "assign", "playerId", assigned));
-        broadcastState(room);
+        // ✅ 길이가 op 의 정해진 크기와 다르면 (잘림/덧붙임/모르는 op) 읽기 전에 버림, 스택 트레이스 없이 세기만
+        if (!message.hasRemaining() || message.remaining() != WireFormat.inboundSize(message.get(message.position()))) {
+            metrics.decodeErrors.increment();
+            return;
+        }
+        try {
+            byte op = message.get();
+
+            // ✅ op 바이트만 보고 버킷 검사 (ack 만 있는 프레임도 move 버킷)
+            InboundMessage.Type type = op == WireFormat.OP_ATTACK ? InboundMessage.Type.ATTACK : InboundMessage.Type.MOVE;
+            if (!allow(conn, type)) return;
+
+            switch (op) {
+                case WireFormat.OP_MOVE -> {
+                    int seq = message.getInt();
+                    onAck(conn, message.getInt());
+                    double x = message.getFloat();
+                    double y = message.getFloat();
+                    int flags = message.get();
+                    enqueueMove(conn, seq, x, y,
+                            (flags & WireFormat.F_FACING_RIGHT) != 0,
+                            (flags & WireFormat.F_ATTACKING) != 0);
+                }
+                case WireFormat.OP_ATTACK -> {
+                    int seq = message.getInt();
+                    onAck(conn, message.getInt());
+                    enqueueAttack(conn, seq);
+                }
+                case WireFormat.OP_ACK -> onAck(conn, message.getInt());
+                default -> metrics.decodeErrors.increment(); // inboundSize 에서 이미 걸러짐
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
     }
 
-    private void handleMove(WebSocket conn, Map<String, Object> map) {
-        String room = socketToRoom.get(conn);
-        String pid = socketToPlayerId.get(conn);
-        if (room == null || pid == null) return;
+    private boolean allow(WebSocket conn, InboundMessage.Type type) {
+        InputLimiter limiter = limiters.get(conn);
+        if (limiter == null || limiter.allow(type, clock.nanos())) return true;
+        metrics.rateLimited.increment();
+        return false;
+    }
 
-        RoomState r = rooms.get(room);
-        if (r == null) return;
+    private void onAck(WebSocket conn, int ack) {
+        if (ack <= 0) return;
+        AckState a = ackedSnapshot.get(conn);
+        if (a != null && ack > a.seq) a.update(ack, clock.nanos());
+    }
 
-        long now = System.currentTimeMillis();
+    private void handleMove(WebSocket conn, InboundMessage msg) {
+        // ✅ attacking/seq 필드는 없으면 false/0 (디코더에서 처리)
+        enqueueMove(conn, msg.seq, msg.x, msg.y, msg.facingRight, msg.attacking);
+    }
 
-        // ✅ 득점 직후 잠깐은 move 무시 (리스폰 덮임 방지)
-        if (now < r.respawnLockUntil) {
-            broadcastState(room);
+    private void handleAttack(WebSocket conn, InboundMessage msg) {
+        // ✅ attack 메시지도 유지 (move에 attacking이 안 들어오거나, 즉시 반응용)
+        enqueueAttack(conn, msg.seq);
+    }
+
+    private void enqueueMove(WebSocket conn, int seq, double x, double y, boolean facing, boolean attacking) {
+        // ✅ NaN/무한대 좌표는 권한 상태/스냅샷에 들어가지 않게 버림 (clampX 는 NaN 을 그대로 통과시킴)
+        if (!Double.isFinite(x) || !Double.isFinite(y)) {
+            metrics.decodeErrors.increment();
             return;
         }
+        enqueue(conn, false, seq, x, y, facing, attacking);
+    }
 
-        double x = ((Number) map.get("x")).doubleValue();
-        double y = ((Number) map.get("y")).doubleValue();
-        boolean facing = (Boolean) map.get("facingRight");
+    private void enqueueAttack(WebSocket conn, int seq) {
+        enqueue(conn, true, seq, 0, 0, false, true);
+    }
 
-        // ✅ attacking 필드가 올 수도 있고 안 올 수도 있으니 안전 처리
-        boolean attackingFlag = false;
-        Object attackingObj = map.get("attacking");
-        if (attackingObj instanceof Boolean b) attackingFlag = b;
+    // ✅ 판정/브로드캐스트는 방 레인에서 (여기서는 적재만)
+    private void enqueue(WebSocket conn, boolean attack, int seq, double x, double y,
+            boolean facing, boolean attacking) {
+        String room = socketToRoom.get(conn);
+        if (room == null) return;
 
-        if ("p1".equals(pid)) {
-            if (r.p1 == null) return;
+        RoomLane lane = laneOf(room);
+        if (lane == null) return;
 
-            boolean moved = Math.abs(x - r.p1.x()) > 0.1 || Math.abs(y - r.p1.y()) > 0.1;
+        lane.submit(new InputCommand(lane, conn, room, attack, seq, x, y, facing, attacking, clock.nanos()));
+    }
 
-            // ✅ 공격 시작 감지( false -> true )
-            if (attackingFlag && !r.p1WasAttacking) {
-                r.p1AttackStart = now;
-                r.lastP1Input = now; // 최근 입력 갱신
+    // ✅ 테스트용: 레인 스레드를 띄우지 않은 (start 전) PLATFORM 서버에서 레인마다 inbox 비우기 + 틱 1회를 현재 스레드로
+    void runLanesOnce(long now) {
+        for (RoomLane lane : lanes) {
+            lane.drain();
+            tickRooms(lane, now);
+        }
+    }
+
+    private void tickRooms(RoomLane lane, long now) {
+        if (lane.replay != null && !lane.rooms.isEmpty()) lane.replay.tick(now);
+        for (int i = 0; i < lane.ticking.size(); i++) {
+            RoomState r = lane.ticking.get(i);
+            long t0 = System.nanoTime();
+            try {
+                tick(r, now, lane.fanOut);
+            } catch (Exception ex) {
+                ex.printStackTrace(); // 한 방의 예외가 레인을 죽이지 않도록
             }
-            r.p1WasAttacking = attackingFlag;
+            long dt = System.nanoTime() - t0;
+            metrics.tickNanos.record(dt);
+            r.metrics.tick(dt);
+        }
+    }
 
-            if (moved) r.lastP1Input = now; // ✅ 실제로 위치가 바뀐 경우만 입력으로 취급
+    // ✅ 방 1개를 한 틱 진행 (입력은 이미 레인 inbox 에서 적용됨): 공격 윈도우 갱신 -> 판정 1회 -> 스냅샷 1회
+    void tick(RoomState r, long now, SnapshotFanOut fanOut) {
+        simulate(r, now);
 
-            boolean attackingNow = isAttacking(now, r.p1AttackStart);
-            r.p1 = new Player("p1", r.p1.nickname(), x, y, facing, attackingNow);
+        if (r.dirty) {
+            r.dirty = false;
+            broadcastState(r, fanOut);
+        }
 
-        } else {
-            if (r.p2 == null) return;
+        // ✅ 채팅은 상태 스냅샷 다음에, 창이 닫힌 방만
+        if (!r.chatBatch.isEmpty() && now >= r.chatFlushAt) {
+            flushChat(r);
+        }
+    }
 
-            boolean moved = Math.abs(x - r.p2.x()) > 0.1 || Math.abs(y - r.p2.y()) > 0.1;
+    // ✅ 틱 1회의 규칙 부분만 (전송 없음, 리플레이 엔진도 사용), 이번 틱에 득점했으면 true
+    static boolean simulate(RoomState r, long now) {
+        r.positions.record(now, r.p1, r.p2);
+        refreshAttacking(r, now);
+        return checkHitWithPriority(r, now);
+    }
 
-            if (attackingFlag && !r.p2WasAttacking) {
-                r.p2AttackStart = now;
-                r.lastP2Input = now;
-            }
-            r.p2WasAttacking = attackingFlag;
+    static void applyMove(RoomState r, PlayerSlot p, int seq, double x, double y,
+            boolean facingRight, boolean attacking, long now) {
+        if (!markProcessed(p, seq)) return;
+
+        // ✅ 득점 직후 잠깐은 move 무시 (리스폰 덮임 방지)
+        if (FencingRules.respawnLocked(now, r.respawnLockUntil)) {
+            r.dirty = true;
+            return;
+        }
 
-            if (moved) r.lastP2Input = now;
+        x = FencingRules.clampX(x); // 피스트 밖 좌표는 끝으로 (정상 클라는 이미 같은 규칙으로 막음)
+        boolean moved = FencingRules.moved(p.x, p.y, x, y);
 
-            boolean attackingNow = isAttacking(now, r.p2AttackStart);
-            r.p2 = new Player("p2", r.p2.nickname(), x, y, facing, attackingNow);
+        // ✅ 공격 시작 감지( false -> true )
+        if (attacking && !p.wasAttacking) {
+            p.attackStart = now;
+            p.hitCheckedTo = FencingRules.NO_ATTACK;
+            p.lastInput = now; // 최근 입력 갱신
         }
+        p.wasAttacking = attacking;
 
-        // ✅ move 때도 판정
-        checkHitWithPriority(r, now);
-        broadcastState(room);
-    }
+        if (moved) p.lastInput = now; // ✅ 실제로 위치가 바뀐 경우만 입력으로 취급
 
-    private void handleAttack(WebSocket conn, Map<String, Object> map) {
-        // ✅ attack 메시지도 유지 (move에 attacking이 안 들어오거나, 즉시 반응용)
-        String room = socketToRoom.get(conn);
-        String pid = socketToPlayerId.get(conn);
-        if (room == null || pid == null) return;
+        p.x = x;
+        p.y = y;
+        p.facingRight = facingRight;
+        p.attacking = FencingRules.isAttacking(now, p.attackStart);
 
-        RoomState r = rooms.get(room);
-        if (r == null) return;
+        r.dirty = true;
+    }
 
-        long now = System.currentTimeMillis();
+    static void applyAttack(RoomState r, PlayerSlot p, int seq, long now) {
+        if (!markProcessed(p, seq)) return;
 
-        if (now < r.respawnLockUntil) {
-            broadcastState(room);
+        if (FencingRules.respawnLocked(now, r.respawnLockUntil)) {
+            r.dirty = true;
             return;
         }
 
-        if ("p1".equals(pid)) {
-            if (r.p1 == null) return;
-            r.p1AttackStart = now;
-            r.p1WasAttacking = true;
-            r.lastP1Input = now;
-            r.p1 = new Player(r.p1.id(), r.p1.nickname(), r.p1.x(), r.p1.y(), r.p1.facingRight(), true);
-        } else {
-            if (r.p2 == null) return;
-            r.p2AttackStart = now;
-            r.p2WasAttacking = true;
-            r.lastP2Input = now;
-            r.p2 = new Player(r.p2.id(), r.p2.nickname(), r.p2.x(), r.p2.y(), r.p2.facingRight(), true);
-        }
+        p.attackStart = now;
+        p.hitCheckedTo = FencingRules.NO_ATTACK;
+        p.wasAttacking = true;
+        p.lastInput = now;
+        p.attacking = true;
 
-        checkHitWithPriority(r, now);
-        broadcastState(room);
+        r.dirty = true;
     }
 
-    // ✅ 최근 입력자 우선 + 득점 1회만
-    private void checkHitWithPriority(RoomState r, long now) {
-        if (r.p1 == null || r.p2 == null) return;
+    // ✅ 입력은 시퀀스 순서대로만 적용 (이미 처리한 번호 이하는 버림)
+    private static boolean markProcessed(PlayerSlot p, int seq) {
+        if (seq == 0) return true; // 시퀀스 없는 구버전 입력
+        if (seq <= p.seq) return false;
+        p.seq = seq;
+        return true;
+    }
 
-        boolean p1First = r.lastP1Input >= r.lastP2Input;
+    // ✅ 입력이 없어도 공격 윈도우(0.2초)가 끝나면 attacking=false 로 내려줌
+    static void refreshAttacking(RoomState r, long now) {
+        refreshAttacking(r, r.p1, now);
+        refreshAttacking(r, r.p2, now);
+    }
 
-        if (p1First) {
-            if (hit(r, true, now)) { onScore(r, true, now); return; }
-            if (hit(r, false, now)) { onScore(r, false, now); }
-        } else {
-            if (hit(r, false, now)) { onScore(r, false, now); return; }
-            if (hit(r, true, now)) { onScore(r, true, now); }
+    private static void refreshAttacking(RoomState r, PlayerSlot p, long now) {
+        if (!p.present) return;
+        boolean a = FencingRules.isAttacking(now, p.attackStart);
+        if (a != p.attacking) {
+            p.attacking = a;
+            r.dirty = true;
         }
     }
 
-    // ✅ p1Attacker = true면 p1이 공격자
-    private boolean hit(RoomState r, boolean p1Attacker, long now) {
-        Player attacker = p1Attacker ? r.p1 : r.p2;
-        Player defender = p1Attacker ? r.p2 : r.p1;
+    // ✅ 먼저 닿은 쪽이 득점 (닿은 시각으로) + 득점 1회만
+    static boolean checkHitWithPriority(RoomState r, long now) {
+        if (!r.p1.present || !r.p2.present) return false;
+
+        long c1 = contactTime(r, r.p1, r.p2, now);
+        long c2 = contactTime(r, r.p2, r.p1, now);
 
-        if (attacker == null || defender == null) return false;
+        // ✅ 두 공격 모두 now 까지 판정 끝 (다음 판정은 여기서부터 훑음)
+        r.p1.hitCheckedTo = now;
+        r.p2.hitCheckedTo = now;
+
+        if (c1 == FencingRules.NO_CONTACT && c2 == FencingRules.NO_CONTACT) return false;
+
+        boolean p1Scored;
+        if (c2 == FencingRules.NO_CONTACT) p1Scored = true;
+        else if (c1 == FencingRules.NO_CONTACT) p1Scored = false;
+        else if (c1 != c2) p1Scored = c1 < c2;
+        else {
+            // ✅ 정확히 같은 시각이면 최근 입력자 우선 (도착 시각이 아니라 RTT 만큼 당긴 "클라에서 누른 시각" 기준)
+            p1Scored = FencingRules.p1HasPriority(r.p1.lastInput, rewindNanos(r.p1), r.p2.lastInput, rewindNanos(r.p2));
+        }
+        return onScore(r, p1Scored, p1Scored ? c1 : c2);
+    }
+
+    // ✅ 공격자가 보던 상대는 RTT(스냅샷 편도 + 입력 편도) + 보간 지연만큼 과거, 상한 MAX_REWIND_NANOS
+    //    RTT 를 모르는 클라(JSON, ack 없음)는 되감지 않음
+    static long rewindNanos(PlayerSlot p) {
+        if (p.rttMs == 0) return 0;
+        return Math.min(MAX_REWIND_NANOS, Math.round((p.rttMs + INTERP_DELAY_MS) * 1_000_000));
+    }
+
+    // ✅ 방어자는 공격자가 보던 시점 위치로 되감아서 판정 (득점/리스폰 이전으로는 안 감)
+    static boolean hit(RoomState r, PlayerSlot attacker, PlayerSlot defender, long now) {
+        return contactTime(r, attacker, defender, now) != FencingRules.NO_CONTACT;
+    }
+
+    /**
+     * 연속 판정: 직전 판정 시각부터 now 까지 칼끝이 지나간 구간을 같은 동안의 방어자 움직임과 겹쳐서 처음 닿은 시각
+     * (없으면 NO_CONTACT). 틱 사이에 스쳐 지나간 찌르기도 잡으므로 틱/입력 빈도가 낮아도 판정이 빠지지 않는다.
+     * 칼끝 / 공격자 / 되감은 방어자가 전부 직선인 조각 (칼끝 꺾임, 위치 기록 칸) 으로 나눠 조각마다 계산.
+     * 상태는 안 바꿈: 어디까지 판정했는지 (hitCheckedTo) 는 checkHitWithPriority 가 두 공격 다 본 뒤에 옮긴다.
+     */
+    static long contactTime(RoomState r, PlayerSlot attacker, PlayerSlot defender, long now) {
+        if (!attacker.present || !defender.present) return FencingRules.NO_CONTACT;
+        long start = attacker.attackStart;
+        if (start < 0 || now < start) return FencingRules.NO_CONTACT;
+
+        long from = Math.max(start, attacker.hitCheckedTo);
+        long to = Math.min(now, start + FencingRules.ATTACK_WINDOW_NANOS);
+        if (from > to) return FencingRules.NO_CONTACT; // 윈도우는 이미 다 봄
+
+        long rewind = rewindNanos(attacker);
+        long t0 = from;
+        double gx0 = gapX(r, attacker, defender, rewind, t0);
+        double gy0 = gapY(r, attacker, defender, rewind, t0);
+        while (true) {
+            long t1 = Math.min(to, nextBreak(r, attacker, rewind, t0));
+            double gx1 = gapX(r, attacker, defender, rewind, t1);
+            double gy1 = gapY(r, attacker, defender, rewind, t1);
+            long at = FencingRules.firstContact(t0, t1, gx0, gx1, gy0, gy1);
+            if (at != FencingRules.NO_CONTACT || t1 >= to) return at;
+            t0 = t1;
+            gx0 = gx1;
+            gy0 = gy1;
+        }
+    }
 
-        // ✅ 공격 윈도우 내에서만 판정
-        long start = p1Attacker ? r.p1AttackStart : r.p2AttackStart;
-        if (!isAttacking(now, start)) return false;
+    // t 시점 칼끝 x - 공격자가 보던 방어자 x
+    private static double gapX(RoomState r, PlayerSlot attacker, PlayerSlot defender, long rewind, long t) {
+        double reach = FencingRules.BASE_REACH + FencingRules.bladeOffset(t, attacker.attackStart);
+        double tip = FencingRules.tipX(r.positions.x(attacker, t), attacker.facingRight, reach);
+        return tip - r.positions.x(defender, viewTime(r, rewind, t));
+    }
 
-        // ✅ 서버에서 bladeOffset 계산해서 팁 이동 반영
-        double offset = bladeOffset(now, start); // 0~30
-        double reach = 40 + offset;             // 40 + 0~30 = 40~70
+    private static double gapY(RoomState r, PlayerSlot attacker, PlayerSlot defender, long rewind, long t) {
+        return r.positions.y(attacker, t) - r.positions.y(defender, viewTime(r, rewind, t));
+    }
 
-        double tipX = attacker.facingRight() ? attacker.x() + reach : attacker.x() - reach;
+    private static long viewTime(RoomState r, long rewind, long t) {
+        return Math.max(t - rewind, r.lastScoreTime);
+    }
 
-        return Math.abs(tipX - defender.x()) < 20
-                && Math.abs(attacker.y() - defender.y()) < 40;
+    // t 다음으로 칼끝 / 공격자 / 되감은 방어자 중 하나라도 꺾이는 시각 (그 사이는 전부 직선), 항상 t 보다 뒤
+    private static long nextBreak(RoomState r, PlayerSlot attacker, long rewind, long t) {
+        long next = Math.min(FencingRules.nextBladeBreak(t, attacker.attackStart), r.positions.nextAfter(t));
+        long view = t - rewind;
+        if (view < r.lastScoreTime) return Math.min(next, r.lastScoreTime + rewind);
+        long d = r.positions.nextAfter(view);
+        return d == Long.MAX_VALUE ? next : Math.min(next, d + rewind);
     }
 
-    private boolean isAttacking(long now, long start) {
-        if (start < 0) return false;
-        long dt = now - start;
-        return dt >= 0 && dt <= 200; // 0.2초 공격 윈도우
+    // ✅ 되감기 없이 현재 위치 기준
+    static boolean hit(PlayerSlot attacker, PlayerSlot defender, long now) {
+        if (!attacker.present || !defender.present) return false;
+        return hit(attacker, defender.x, defender.y, now);
     }
 
-    // ✅ 0~0.1 전진, 0.1~0.2 복귀 (삼각파)
-    private double bladeOffset(long now, long start) {
-        if (start < 0) return 0.0;
-        double t = (now - start) / 1000.0; // sec
-        if (t < 0) return 0.0;
-        if (t < 0.1) return (t / 0.1) * 30.0;
-        if (t < 0.2) return (1.0 - ((t - 0.1) / 0.1)) * 30.0;
-        return 0.0;
+    // ✅ 공격 윈도우 안에서 칼끝 (40 + bladeOffset 0~30) 이 닿는지 - 클라 예측과 같은 함수
+    private static boolean hit(PlayerSlot attacker, double defenderX, double defenderY, long now) {
+        return FencingRules.hit(attacker.x, attacker.y, attacker.facingRight, attacker.attackStart,
+                defenderX, defenderY, now);
     }
 
-    private void onScore(RoomState r, boolean p1Scored, long now) {
+    // now = 닿은 시각 (틱 시각보다 이를 수 있음), 디바운스/리스폰 락도 그 시각 기준, 실제로 점수가 올랐으면 true
+    static boolean onScore(RoomState r, boolean p1Scored, long now) {
         // ✅ 디바운스(연속 득점 방지)
-        if (now - r.lastScoreTime < 250) return;
+        if (!FencingRules.canScore(now, r.lastScoreTime)) return false;
         r.lastScoreTime = now;
 
         if (p1Scored) r.score1++;
         else r.score2++;
 
         // ✅ 즉시 리스폰 (닉 유지)
-        r.p1 = new Player("p1", r.p1.nickname(), 100, 400, true, false);
-        r.p2 = new Player("p2", r.p2.nickname(), 700, 400, false, false);
+        r.p1.respawn();
+        r.p2.respawn();
 
         // ✅ 공격 상태 리셋
-        r.p1AttackStart = -1;
-        r.p2AttackStart = -1;
-        r.p1WasAttacking = false;
-        r.p2WasAttacking = false;
+        r.p1.resetAttack();
+        r.p2.resetAttack();
 
         // ✅ 리스폰 직후 move 덮임 방지 락
-        r.respawnLockUntil = now + 200;
+        r.respawnLockUntil = FencingRules.respawnLockUntil(now);
+        r.positions.clear();
+        r.dirty = true;
+        return true;
     }
 
-    private void handleChat(WebSocket conn, Map<String, Object> map) {
+    private void handleChat(WebSocket conn, InboundMessage msg) {
         String room = socketToRoom.get(conn);
         if (room == null) return;
 
-        String senderId = socketToPlayerId.get(conn);
-        String text = (String) map.get("chat");
+        String text = msg.chat;
+        if (text == null) return;
+
+        submit(room, false, lane -> () -> chat(lane, conn, room, text));
+    }
+
+    // ✅ 레인 스레드에서 실행 (닉네임/멤버 목록을 방 상태에서 바로 읽음)
+    private void chat(RoomLane lane, WebSocket conn, String room, String text) {
+        RoomState r = lane.rooms.get(room);
+        if (r == null) return;
+        r.metrics.messagesIn.increment();
+
+        PlayerSlot sender = r.slotOf(conn);
+        if (sender == null) return;
 
-        RoomState r = rooms.get(room);
-        String nick = "";
-        if (r != null) {
-            if ("p1".equals(senderId) && r.p1 != null) nick = r.p1.nickname();
-            if ("p2".equals(senderId) && r.p2 != null) nick = r.p2.nickname();
+        // ✅ 바로 보내지 않고 방 배치에 모음 (첫 줄이 들어올 때 창 시작)
+        if (r.chatBatch.size() >= CHAT_BATCH_MAX) {
+            metrics.rateLimited.increment();
+            return;
+        }
+        if (r.chatBatch.isEmpty()) r.chatFlushAt = clock.nanos() + TimeUnit.MILLISECONDS.toNanos(CHAT_WINDOW_MS);
+        r.chatBatch.add(new ChatLine(sender.id, sender.nickname, text));
+    }
+
+    // ✅ 모인 채팅을 프레임 1개로: 1줄이면 기존 chat 모양, 여러 줄이면 chatBatch
+    void flushChat(RoomState r) {
+        try {
+            StringWriter out = new StringWriter(64 * r.chatBatch.size());
+            try (JsonGenerator g = mapper.getFactory().createGenerator(out)) {
+                if (r.chatBatch.size() == 1) {
+                    writeChatLine(g, r.chatBatch.get(0), "chat");
+                } else {
+                    g.writeStartObject();
+                    g.writeStringField("type", "chatBatch");
+                    g.writeArrayFieldStart("lines");
+                    for (ChatLine line : r.chatBatch) writeChatLine(g, line, null);
+                    g.writeEndArray();
+                    g.writeEndObject();
+                }
+            }
+            broadcastText(r, out.toString());
+            metrics.chatFrames.increment();
+            metrics.chatLines.add(r.chatBatch.size());
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            r.chatBatch.clear();
         }
+    }
 
-        broadcast(room, Map.of(
-                "type", "chat",
-                "senderId", senderId,
-                "nickname", nick,
-                "text", text
-        ));
+    private static void writeChatLine(JsonGenerator g, ChatLine line, String type) throws IOException {
+        g.writeStartObject();
+        if (type != null) g.writeStringField("type", type);
+        g.writeStringField("senderId", line.senderId());
+        g.writeStringField("nickname", line.nickname());
+        g.writeStringField("text", line.text());
+        g.writeEndObject();
     }
 
     private void sendError(WebSocket conn, String msg) {
         send(conn, Map.of("type", "error", "msg", msg));
     }
 
-    private void broadcastState(String room) {
-        RoomState r = rooms.get(room);
-        if (r == null) return;
+    void broadcastState(RoomState r, SnapshotFanOut fanOut) {
+        long t0 = System.nanoTime();
+        int seq = ++r.snapshotSeq;
+        boolean jsonForAll = r.rosterChanged;
+        r.rosterChanged = false;
+
+        WireSnapshot cur = r.history[Math.floorMod(seq, SNAPSHOT_HISTORY)];
+        cur.capture(seq, r.score1, r.score2, r.gameStartTime, r.p1, r.p2);
+        r.sentAt[Math.floorMod(seq, SNAPSHOT_HISTORY)] = clock.nanos();
+
+        // ✅ 주기적으로(약 1초) 전원에게 키프레임
+        boolean keyframe = seq % tickRate == 0;
+
+        for (int i = 0; i < r.members.size(); i++) {
+            WebSocket conn = r.members.get(i);
+            // ✅ 소켓 송신 큐 깊이 (느린 클라가 밀리는지), 카운트만 읽음
+            if (conn instanceof WebSocketImpl impl) metrics.sendQueueDepth.record(impl.outQueue.size());
+
+            if (jsonForAll || !binaryWire.contains(conn)) {
+                fanOut.addJson(conn);
+                continue;
+            }
+
+            AckState a = ackedSnapshot.get(conn);
+            int ack = a == null ? 0 : a.seq;
+            if (ack > 0) sampleRtt(r, conn, ack, a.at);
+            WireSnapshot base = (keyframe || ack == 0 || ack >= seq) ? null : r.snapshot(ack);
+
+            if (base == null) fanOut.addFull(conn);
+            else fanOut.addDelta(conn, base);
+        }
+
+        // ✅ RTT 는 위 루프에서 갱신되므로 그 다음에 기록
+        if (r.replay != null) r.replay.state(r.replayId, r.p1.rttMs, r.p2.rttMs, cur);
+
+        int recipients = r.members.size();
+        String json = null;
+        if (fanOut.needsJson()) {
+            long s0 = System.nanoTime();
+            try {
+                json = stateJson(r);
+                metrics.serializeNanos.record(System.nanoTime() - s0);
+            } catch (IOException e) {
+                // ✅ 직렬화 실패: 이번 스냅샷은 JSON 그룹만 건너뜀 (바이너리 수신자는 그대로), 다음 틱에 다시 시도
+                e.printStackTrace();
+                metrics.serializeErrors.increment();
+                recipients -= fanOut.dropJson();
+            }
+        }
+
+        // ✅ 그룹마다 페이로드 인코딩 1번 (와이어 바이트는 라이브러리가 연결마다 복사)
+        long bytes = fanOut.send(cur, json);
+
+        metrics.snapshotsSent.increment();
+        metrics.bytesOut.add(bytes);
+        metrics.fanOut.record(recipients);
+        metrics.snapshotBytes.record(bytes);
+        metrics.broadcastNanos.record(System.nanoTime() - t0);
+        r.metrics.snapshots.increment();
+        r.metrics.bytesOut.add(bytes);
+    }
 
-        java.util.Map<String, Object> data = new java.util.HashMap<>();
-        data.put("room", room);
-        data.put("p1", r.p1);
-        data.put("p2", r.p2);
-        data.put("score1", r.score1);
-        data.put("score2", r.score2);
-        data.put("gameStartTime", r.gameStartTime);
+    // ✅ 새 ack 가 들어왔으면 (ack 수신 시각 - 그 스냅샷 전송 시각) 을 RTT 샘플로
+    //    ack 는 다음 입력/하트비트에 실려 오므로 약간 크게 잡히지만, 되감기는 MAX_REWIND_NANOS 로 막혀 있음
+    private static void sampleRtt(RoomState r, WebSocket conn, int ack, long ackAt) {
+        PlayerSlot p = r.slotOf(conn);
+        if (p == null || ack == p.lastAck) return;
+        p.lastAck = ack;
 
-        broadcast(room, data);
+        if (r.snapshot(ack) == null) return; // 이미 링에서 밀려남
+        long sample = ackAt - r.sentAt[Math.floorMod(ack, SNAPSHOT_HISTORY)];
+        if (sample >= 0 && sample < RTT_SAMPLE_MAX_NANOS) p.observeRtt(sample / 1e6);
+    }
+
+    // ✅ 자리 필드에서 바로 직렬화 (HashMap/Player 임시 객체 없이)
+    String stateJson(RoomState r) throws IOException {
+        StringWriter out = new StringWriter(256);
+        try (JsonGenerator g = mapper.getFactory().createGenerator(out)) {
+            g.writeStartObject();
+            g.writeStringField("room", r.name);
+            g.writeFieldName("p1");
+            r.p1.writeJson(g);
+            g.writeFieldName("p2");
+            r.p2.writeJson(g);
+            g.writeNumberField("score1", r.score1);
+            g.writeNumberField("score2", r.score2);
+            g.writeNumberField("gameStartTime", r.gameStartTime);
+            g.writeEndObject();
+        }
+        return out.toString();
     }
 
     private void send(WebSocket conn, Object obj) {
@@ -354,13 +1075,13 @@ public class GameServer extends WebSocketServer {
         } catch (Exception ignored) {}
     }
 
-    private void broadcast(String room, Object obj) {
-        try {
-            String json = mapper.writeValueAsString(obj);
-            for (var e : socketToRoom.entrySet()) {
-                if (room.equals(e.getValue())) e.getKey().send(json);
-            }
-        } catch (Exception ignored) {}
+    // ✅ 방 멤버에게만 전송 (O(방 인원)), 직렬화는 1번
+    private void broadcastText(RoomState r, String text) {
+        broadcast(text, r.members);
+
+        long bytes = (long) text.length() * r.members.size(); // 대부분 ASCII 라 글자 수로 근사
+        metrics.bytesOut.add(bytes);
+        r.metrics.bytesOut.add(bytes);
     }
 
     @Override
@@ -370,8 +1091,20 @@ public class GameServer extends WebSocketServer {
 
     @Override
     public void onStart() {
-        System.out.println("Game server started");
+        for (RoomLane lane : lanes) lane.thread.start();
+        if (threadMode == ThreadMode.VIRTUAL) {
+            System.out.println("Game server started (tick " + tickRate + " Hz, virtual thread per room)");
+        } else {
+            System.out.println("Game server started (tick " + tickRate + " Hz, " + lanes.length + " lanes)");
+        }
     }
 
-    public record Player(String id, String nickname, double x, double y, boolean facingRight, boolean attacking) {}
+    @Override
+    public void stop(int timeout, String closeMessage) throws InterruptedException {
+        for (RoomLane lane : lanes) lane.shutdown();
+        for (RoomLane lane : roomLanes.values()) lane.shutdown();
+        sideWork.shutdown();
+        sideWork.awaitTermination(timeout, TimeUnit.MILLISECONDS); // 레인이 넘긴 리플레이 마무리 (끝 표시 + force)
+        super.stop(timeout, closeMessage);
+    }
 }
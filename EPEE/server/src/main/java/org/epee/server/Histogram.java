@@ -0,0 +1,79 @@
+package org.epee.server;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 락 없는 로그 스케일 히스토그램 (2의 거듭제곱 구간마다 4칸, 상대 오차 25% 이내).
+ * 버킷이 LongAdder 라서 여러 스레드가 동시에 기록해도 경합이 없고, record 는 할당이 없다.
+ * 값 단위는 호출하는 쪽 마음 (ns, 바이트, 개수 ...).
+ */
+final class Histogram {
+
+    private static final int SUB_BITS = 2;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = 64 * SUB;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    Histogram() {
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+    }
+
+    void record(long value) {
+        if (value < 0) value = 0;
+        buckets[index(value)].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    long sum() {
+        return sum.sum();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    /** 백분위 근사값 (해당 버킷 상한, 최대값을 넘지 않게) - 샘플 없으면 0 */
+    long percentile(double p) {
+        long[] counts = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            n += counts[i];
+        }
+        if (n == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(upperBound(i), max());
+        }
+        return max();
+    }
+
+    static int index(long v) {
+        if (v < SUB) return (int) v;
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (msb - SUB_BITS)) & (SUB - 1);
+        return (msb - SUB_BITS + 1) * SUB + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB) return index;
+        int msb = index / SUB + SUB_BITS - 1;
+        int sub = index % SUB;
+        long width = 1L << (msb - SUB_BITS);
+        return (SUB + sub + 1) * width - 1;
+    }
+}
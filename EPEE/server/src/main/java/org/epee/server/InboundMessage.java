@@ -0,0 +1,32 @@
+package org.epee.server;
+
+/**
+ * JSON 클라 메시지 1건을 디코딩해 담는 재사용 객체 (소켓 스레드마다 1개).
+ * Map + 박싱 대신 필드에 바로 채우고, 핸들러가 값을 꺼내 쓴 뒤 다음 메시지에서 다시 채운다.
+ */
+final class InboundMessage {
+
+    enum Type { JOIN, MOVE, ATTACK, CHAT, UNKNOWN }
+
+    Type type;
+    String room;
+    String nickname;
+    String chat;
+    double x;
+    double y;
+    boolean facingRight;
+    boolean attacking; // 필드가 없으면 false
+    int seq;           // 필드가 없으면 0
+
+    void reset() {
+        type = Type.UNKNOWN;
+        room = null;
+        nickname = null;
+        chat = null;
+        x = 0;
+        y = 0;
+        facingRight = false;
+        attacking = false;
+        seq = 0;
+    }
+}
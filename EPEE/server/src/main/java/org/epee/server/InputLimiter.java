@@ -0,0 +1,41 @@
+package org.epee.server;
+
+/**
+ * 연결 1개의 메시지 종류별 토큰 버킷. 본문을 디코딩하기 전에(바이너리는 op 바이트, JSON 은 type 만 보고) 검사해서
+ * 한 클라가 입력/채팅을 쏟아부어도 방 레인까지 가지 않도록 한다. 소켓 워커 스레드 전용.
+ */
+final class InputLimiter {
+
+    // ✅ 정상 클라: move 는 바뀔 때만(프레임당 최대 1번) + 0.25초 하트비트, 공격 윈도우 0.2초, 채팅은 사람 속도
+    static final double MOVE_PER_SECOND = 120;
+    static final double MOVE_BURST = 60;
+    static final double ATTACK_PER_SECOND = 10;
+    static final double ATTACK_BURST = 5;
+    static final double CHAT_PER_SECOND = 1;
+    static final double CHAT_BURST = 5;
+    static final double JOIN_PER_SECOND = 1;
+    static final double JOIN_BURST = 3;
+
+    private final TokenBucket move;
+    private final TokenBucket attack;
+    private final TokenBucket chat;
+    private final TokenBucket join;
+
+    InputLimiter(long nowNanos) {
+        move = new TokenBucket(MOVE_PER_SECOND, MOVE_BURST, nowNanos);
+        attack = new TokenBucket(ATTACK_PER_SECOND, ATTACK_BURST, nowNanos);
+        chat = new TokenBucket(CHAT_PER_SECOND, CHAT_BURST, nowNanos);
+        join = new TokenBucket(JOIN_PER_SECOND, JOIN_BURST, nowNanos);
+    }
+
+    /** @return false 면 버림 (UNKNOWN 은 디코딩 에러로 따로 셈) */
+    boolean allow(InboundMessage.Type type, long nowNanos) {
+        return switch (type) {
+            case MOVE -> move.tryTake(nowNanos);
+            case ATTACK -> attack.tryTake(nowNanos);
+            case CHAT -> chat.tryTake(nowNanos);
+            case JOIN -> join.tryTake(nowNanos);
+            case UNKNOWN -> true;
+        };
+    }
+}
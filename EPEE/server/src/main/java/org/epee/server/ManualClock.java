@@ -0,0 +1,46 @@
+package org.epee.server;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 손으로 돌리는 {@link Clock} (테스트 / 리플레이 엔진). 실제 시간과 무관하게 advance/set 한 만큼만 흐르고,
+ * 벽시계도 같은 양만큼 따라 움직여서 결과가 항상 같다. 스레드 1개 전용.
+ */
+final class ManualClock implements Clock {
+
+    private final long wallOrigin;
+    private long now;
+
+    ManualClock() {
+        this(0, 0);
+    }
+
+    ManualClock(long startNanos, long wallOriginMillis) {
+        this.now = startNanos;
+        this.wallOrigin = wallOriginMillis;
+    }
+
+    @Override
+    public long nanos() {
+        return now;
+    }
+
+    @Override
+    public long wallMillis() {
+        return wallOrigin + TimeUnit.NANOSECONDS.toMillis(now);
+    }
+
+    void advance(long nanos) {
+        if (nanos < 0) throw new IllegalArgumentException("clock cannot go back: " + nanos);
+        now += nanos;
+    }
+
+    void advanceMillis(long millis) {
+        advance(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /** 기록된 시각으로 바로 이동 (리플레이), 뒤로는 안 감 */
+    void set(long nanos) {
+        if (nanos > now) now = nanos;
+    }
+}
@@ -0,0 +1,100 @@
+package org.epee.server;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * 클라 JSON 메시지를 스트리밍 파서로 한 번에 {@link InboundMessage} 에 채운다.
+ * 클라 Msg 레코드는 "type" 이 첫 필드라서, type 을 먼저 보고 move/attack 이면
+ * room/nickname/chat 같은 문자열 필드는 String 으로 만들지 않고 건너뛴다.
+ */
+final class MessageDecoder {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private MessageDecoder() {}
+
+    private static final String TYPE_PREFIX = "{\"type\":\"";
+
+    /**
+     * 전체 디코딩 전에 type 만 확인 (클라 Msg 는 type 이 첫 필드라 문자열 앞부분만 비교).
+     * 모양이 다르면(공백/필드 순서가 다른 클라) null -> 디코딩 후에 판단
+     */
+    static InboundMessage.Type peekType(String json) {
+        if (!json.startsWith(TYPE_PREFIX)) return null;
+        int off = TYPE_PREFIX.length();
+        if (is(json, off, "move")) return InboundMessage.Type.MOVE;
+        if (is(json, off, "attack")) return InboundMessage.Type.ATTACK;
+        if (is(json, off, "chat")) return InboundMessage.Type.CHAT;
+        if (is(json, off, "join")) return InboundMessage.Type.JOIN;
+        return null;
+    }
+
+    // json[off..] 이 "s" + 닫는 따옴표인지
+    private static boolean is(String json, int off, String s) {
+        return json.startsWith(s, off) && json.length() > off + s.length() && json.charAt(off + s.length()) == '"';
+    }
+
+    /** @return 알 수 있는 type 이면 true */
+    static boolean decode(String json, InboundMessage out) throws IOException {
+        out.reset();
+
+        try (JsonParser p = JSON.createParser(json)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return false;
+
+            String field;
+            while ((field = p.nextFieldName()) != null) {
+                JsonToken t = p.nextToken();
+                switch (field) {
+                    case "type" -> out.type = typeOf(p, t);
+                    case "room" -> out.room = needsText(out) ? textOrNull(p, t) : null;
+                    case "nickname" -> out.nickname = needsText(out) ? textOrNull(p, t) : null;
+                    case "chat" -> out.chat = needsText(out) ? textOrNull(p, t) : null;
+                    case "x" -> out.x = p.getValueAsDouble();
+                    case "y" -> out.y = p.getValueAsDouble();
+                    case "facingRight" -> out.facingRight = t == JsonToken.VALUE_TRUE;
+                    case "attacking" -> out.attacking = t == JsonToken.VALUE_TRUE;
+                    case "seq" -> out.seq = p.getValueAsInt();
+                    default -> p.skipChildren();
+                }
+            }
+        }
+
+        return out.type != InboundMessage.Type.UNKNOWN;
+    }
+
+    // move/attack 은 문자열 필드를 안 씀 (type 이 아직 안 나왔으면 일단 읽어둠)
+    private static boolean needsText(InboundMessage out) {
+        return out.type != InboundMessage.Type.MOVE && out.type != InboundMessage.Type.ATTACK;
+    }
+
+    private static String textOrNull(JsonParser p, JsonToken t) throws IOException {
+        return t == JsonToken.VALUE_STRING ? p.getText() : null;
+    }
+
+    // ✅ type 값은 String 을 만들지 않고 파서 버퍼에서 바로 비교
+    private static InboundMessage.Type typeOf(JsonParser p, JsonToken t) throws IOException {
+        if (t != JsonToken.VALUE_STRING) return InboundMessage.Type.UNKNOWN;
+
+        char[] buf = p.getTextCharacters();
+        int off = p.getTextOffset();
+        int len = p.getTextLength();
+
+        if (is(buf, off, len, "move")) return InboundMessage.Type.MOVE;
+        if (is(buf, off, len, "attack")) return InboundMessage.Type.ATTACK;
+        if (is(buf, off, len, "chat")) return InboundMessage.Type.CHAT;
+        if (is(buf, off, len, "join")) return InboundMessage.Type.JOIN;
+        return InboundMessage.Type.UNKNOWN;
+    }
+
+    private static boolean is(char[] buf, int off, int len, String s) {
+        if (len != s.length()) return false;
+        for (int i = 0; i < len; i++) {
+            if (buf[off + i] != s.charAt(i)) return false;
+        }
+        return true;
+    }
+}
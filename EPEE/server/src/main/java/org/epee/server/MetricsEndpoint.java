@@ -0,0 +1,46 @@
+package org.epee.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 로컬 스크랩용 텍스트 엔드포인트: GET http://127.0.0.1:{port}/metrics
+ * (-Depee.metricsPort=9100, 0 이면 끔). 루프백에만 바인딩한다.
+ */
+public final class MetricsEndpoint {
+
+    private final HttpServer http;
+
+    private MetricsEndpoint(HttpServer http) {
+        this.http = http;
+    }
+
+    public static MetricsEndpoint start(int port, ServerMetrics metrics) throws IOException {
+        HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/metrics", ex -> {
+            try (ex) {
+                byte[] body = metrics.textReport(20).getBytes(StandardCharsets.UTF_8);
+                ex.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                ex.sendResponseHeaders(200, body.length);
+                try (OutputStream out = ex.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        http.start(); // 기본 디스패처 스레드 1개 (스크랩 요청만 처리)
+        return new MetricsEndpoint(http);
+    }
+
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    public void stop() {
+        http.stop(0);
+    }
+}
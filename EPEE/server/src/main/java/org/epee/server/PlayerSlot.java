@@ -0,0 +1,116 @@
+package org.epee.server;
+
+import java.io.IOException;
+
+import org.epee.common.FencingRules;
+import org.java_websocket.WebSocket;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * 방의 p1/p2 자리 1개. 방이 살아있는 동안 계속 재사용하고 입력마다 필드만 덮어쓴다.
+ * (move 마다 Player 레코드를 새로 만들던 것 대체, 레인 스레드 전용)
+ */
+final class PlayerSlot {
+
+    static final String P1 = "p1";
+    static final String P2 = "p2";
+
+    final String id;
+    private final double spawnX;
+    private final boolean spawnFacingRight;
+
+    boolean present = false;
+    WebSocket conn = null;   // 슬롯 주인 소켓
+    String nickname = "";
+
+    double x;
+    double y;
+    boolean facingRight;
+    boolean attacking;
+
+    // ✅ 마지막으로 처리한 입력 시퀀스
+    int seq = 0;
+
+    // ✅ (Clock ns) "최근 입력" 기준으로 우선순위 판단 (move spam 때문에 update 시간 쓰면 안됨)
+    long lastInput = 0;
+
+    // ✅ 공격 시작 시각(서버 Clock ns, -1 = 없음) - 공격 윈도우 & bladeOffset 계산용
+    long attackStart = FencingRules.NO_ATTACK;
+
+    // ✅ 이 공격을 어디까지 판정했는지 (Clock ns, 다음 판정은 여기서부터 now 까지 훑음)
+    long hitCheckedTo = FencingRules.NO_ATTACK;
+
+    // ✅ attacking true/false 전환 감지용
+    boolean wasAttacking = false;
+
+    // ✅ 렉 보정용 왕복 지연 추정치 (스냅샷 전송 -> ack 수신, ms, 0 = 아직 모름)
+    double rttMs = 0;
+    int lastAck = 0; // 마지막으로 RTT 샘플을 뽑은 ack
+
+    PlayerSlot(String id, double spawnX, boolean spawnFacingRight) {
+        this.id = id;
+        this.spawnX = spawnX;
+        this.spawnFacingRight = spawnFacingRight;
+    }
+
+    static PlayerSlot p1() {
+        return new PlayerSlot(P1, FencingRules.spawnX(true), FencingRules.spawnFacingRight(true));
+    }
+
+    static PlayerSlot p2() {
+        return new PlayerSlot(P2, FencingRules.spawnX(false), FencingRules.spawnFacingRight(false));
+    }
+
+    void occupy(WebSocket conn, String nickname) {
+        this.present = true;
+        this.conn = conn;
+        this.nickname = nickname;
+        this.seq = 0;
+        this.rttMs = 0;
+        this.lastAck = 0;
+        respawn();
+    }
+
+    void vacate() {
+        present = false;
+        conn = null;
+        nickname = "";
+    }
+
+    // ✅ 스폰 위치로 (닉 유지)
+    void respawn() {
+        x = spawnX;
+        y = FencingRules.SPAWN_Y;
+        facingRight = spawnFacingRight;
+        attacking = false;
+    }
+
+    // ✅ RTT 샘플 반영 (TCP 처럼 1/8 지수 이동 평균)
+    void observeRtt(double sampleMs) {
+        rttMs = rttMs == 0 ? sampleMs : rttMs + (sampleMs - rttMs) / 8.0;
+    }
+
+    void resetAttack() {
+        attackStart = FencingRules.NO_ATTACK;
+        hitCheckedTo = FencingRules.NO_ATTACK;
+        wasAttacking = false;
+    }
+
+    /** 기존 Player 레코드 JSON 과 같은 모양 + 마지막 처리 입력 seq (비어있으면 null) */
+    void writeJson(JsonGenerator g) throws IOException {
+        if (!present) {
+            g.writeNull();
+            return;
+        }
+        g.writeStartObject();
+        g.writeStringField("id", id);
+        g.writeStringField("nickname", nickname);
+        g.writeNumberField("x", x);
+        g.writeNumberField("y", y);
+        g.writeBooleanField("facingRight", facingRight);
+        g.writeBooleanField("attacking", attacking);
+        g.writeNumberField("seq", seq);
+        g.writeEndObject();
+    }
+}
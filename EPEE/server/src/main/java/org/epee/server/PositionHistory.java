@@ -0,0 +1,75 @@
+package org.epee.server;
+
+/**
+ * 방 1개의 최근 p1/p2 위치 기록 (틱마다 1칸, 고정 크기 링 버퍼).
+ * 렉 보정 판정에서 방어자를 공격자가 보고 있던 시점의 위치로 되감을 때 쓴다.
+ * 객체 없이 원시 배열만 쓰고, 레인 스레드 전용.
+ */
+final class PositionHistory {
+
+    // 60Hz 기준 약 0.5초 (최대 되감기 250ms 보다 넉넉하게)
+    static final int SIZE = 32;
+
+    private final long[] at = new long[SIZE];
+    private final double[] x1 = new double[SIZE];
+    private final double[] y1 = new double[SIZE];
+    private final double[] x2 = new double[SIZE];
+    private final double[] y2 = new double[SIZE];
+
+    private int head = -1; // 가장 최근 칸
+    private int count = 0;
+
+    void record(long now, PlayerSlot p1, PlayerSlot p2) {
+        head = (head + 1) % SIZE;
+        at[head] = now;
+        x1[head] = p1.x;
+        y1[head] = p1.y;
+        x2[head] = p2.x;
+        y2[head] = p2.y;
+        if (count < SIZE) count++;
+    }
+
+    // ✅ 리스폰/새 매치 후에는 이전 위치로 되감으면 안 됨
+    void clear() {
+        head = -1;
+        count = 0;
+    }
+
+    /** time 시점의 x (기록 사이면 선형 보간, 기록이 없으면 현재 위치) */
+    double x(PlayerSlot p, long time) {
+        return sample(PlayerSlot.P1.equals(p.id) ? x1 : x2, p.x, time);
+    }
+
+    double y(PlayerSlot p, long time) {
+        return sample(PlayerSlot.P1.equals(p.id) ? y1 : y2, p.y, time);
+    }
+
+    /** time 보다 뒤인 가장 이른 기록 시각 (없으면 Long.MAX_VALUE) - 보간이 꺾이는 지점 */
+    long nextAfter(long time) {
+        long next = Long.MAX_VALUE;
+        for (int n = 0; n < count; n++) {
+            int i = Math.floorMod(head - n, SIZE);
+            if (at[i] <= time) break;
+            next = at[i];
+        }
+        return next;
+    }
+
+    private double sample(double[] v, double current, long time) {
+        if (count == 0 || time >= at[head]) return current;
+
+        // 최근 칸부터 거꾸로: time 이전(이하)인 첫 칸과 그 다음 칸 사이를 보간
+        int newer = head;
+        for (int n = 1; n < count; n++) {
+            int i = Math.floorMod(head - n, SIZE);
+            if (at[i] <= time) {
+                long span = at[newer] - at[i];
+                if (span <= 0) return v[newer];
+                double t = (double) (time - at[i]) / span;
+                return v[i] + (v[newer] - v[i]) * t;
+            }
+            newer = i;
+        }
+        return v[newer]; // 기록보다 더 과거면 가장 오래된 칸
+    }
+}
@@ -0,0 +1,162 @@
+package org.epee.server;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.epee.server.GameServer.RoomState;
+
+/**
+ * 녹화된 레인 로그 1개를 GameServer 규칙 (seat / applyMove / applyAttack / simulate) 으로 다시 돌려서
+ * 그때 보냈던 스냅샷과 점수/위치가 같은지 확인한다. 소켓/전송 없이 규칙만 돈다.
+ * 시계는 기록된 시각 (입력 수신 시각, 레인 틱 시각) 을 그대로 쓰는 가상 시계라 실제 시간을 기다리지 않는다.
+ * 로그끼리는 서로 독립이라 {@link ReplayMain} 이 로그마다 스레드 1개로 병렬 실행한다.
+ */
+final class ReplayEngine {
+
+    record Result(String log, long records, int rooms, long snapshots, long touches,
+            long mismatches, String firstMismatch, long gaps, long spanNanos, long nanos) {}
+
+    private final String log;
+    private final ReplayReader in;
+
+    // ✅ 가상 시계: 레코드 시각으로 옮겨가며 규칙에 넘김 (실제 시간과 무관)
+    private final ManualClock clock = new ManualClock();
+
+    // ✅ 방 번호는 로그 안에서 1 부터 차례로 붙으므로 배열 인덱스로 바로 찾음 (박싱 없음)
+    private RoomState[] byId = new RoomState[64];
+    private final List<RoomState> open = new ArrayList<>();
+
+    private long records = 0;
+    private int rooms = 0;
+    private long snapshots = 0;
+    private long touches = 0;
+    private long mismatches = 0;
+    private long gaps = 0;
+    private String firstMismatch = null;
+    private long firstTick = -1;
+
+    private ReplayEngine(String log, List<Path> segments) {
+        this.log = log;
+        this.in = new ReplayReader(segments);
+    }
+
+    static Result run(String log, List<Path> segments) throws IOException {
+        return new ReplayEngine(log, segments).run();
+    }
+
+    private Result run() throws IOException {
+        long t0 = System.nanoTime();
+        while (in.next()) {
+            records++;
+            if (in.type != ReplayLog.STATE) clock.set(in.at); // 입력은 틱보다 늦게 기록될 수 있어 뒤로는 안 감
+            switch (in.type) {
+                case ReplayLog.TICK -> tick(in.at);
+                case ReplayLog.OPEN -> openRoom(in.room, in.text);
+                case ReplayLog.CLOSE -> closeRoom(in.room);
+                case ReplayLog.JOIN -> join(room(in.room));
+                case ReplayLog.LEAVE -> leave(room(in.room));
+                case ReplayLog.MOVE -> move(room(in.room));
+                case ReplayLog.ATTACK -> attack(room(in.room));
+                case ReplayLog.STATE -> verify(room(in.room));
+                case ReplayLog.GAP -> gap();
+                default -> { }
+            }
+        }
+        return new Result(log, records, rooms, snapshots, touches, mismatches, firstMismatch, gaps,
+                firstTick < 0 ? 0 : clock.nanos() - firstTick, System.nanoTime() - t0);
+    }
+
+    // ✅ 서버 틱과 같은 순서: 그 사이 입력은 이미 적용됨 -> 규칙 1회 (판정/득점/리스폰 락)
+    //    득점 수는 규칙이 실제로 점수를 올린 횟수 (verify 가 점수를 기록 쪽에 맞춰도 안 흔들림)
+    private void tick(long now) {
+        if (firstTick < 0) firstTick = now;
+        for (int i = 0; i < open.size(); i++) {
+            if (GameServer.simulate(open.get(i), now)) touches++;
+        }
+    }
+
+    private void openRoom(int id, String name) {
+        if (id >= byId.length) byId = Arrays.copyOf(byId, Math.max(byId.length * 2, id + 1));
+        RoomState r = new RoomState(name);
+        byId[id] = r;
+        open.add(r);
+        rooms++;
+    }
+
+    private void closeRoom(int id) {
+        RoomState r = room(id);
+        if (r == null) return;
+        byId[id] = null;
+        open.remove(r);
+    }
+
+    // ✅ 기록이 빠진 곳 (서버가 세그먼트를 못 기다리고 버림): 열린 방은 더 이상 비교 못 하니 잊음
+    //    이후 그 방 레코드는 모르는 방으로 건너뜀, 새로 열린 방부터 다시 비교
+    private void gap() {
+        gaps++;
+        open.clear();
+        Arrays.fill(byId, null);
+    }
+
+    private void join(RoomState r) {
+        if (r == null) return;
+        PlayerSlot seated = GameServer.seat(r, null, in.text, in.at, clock.wallMillis());
+        if (seated != slot(r)) mismatch(r, "seated " + (seated == null ? "nobody" : seated.id));
+    }
+
+    private void leave(RoomState r) {
+        if (r == null) return;
+        slot(r).vacate();
+    }
+
+    private void move(RoomState r) {
+        if (r == null) return;
+        GameServer.applyMove(r, slot(r), in.seq, in.x, in.y,
+                (in.flags & WireFormat.F_FACING_RIGHT) != 0,
+                (in.flags & WireFormat.F_ATTACKING) != 0, in.at);
+    }
+
+    private void attack(RoomState r) {
+        if (r == null) return;
+        GameServer.applyAttack(r, slot(r), in.seq, in.at);
+    }
+
+    // ✅ 보냈던 스냅샷과 비교 후, 서버가 그 시점에 갱신한 RTT 를 반영 (다음 틱부터 되감기에 쓰임)
+    private void verify(RoomState r) {
+        if (r == null) return;
+        snapshots++;
+        if (in.score1 != r.score1 || in.score2 != r.score2) {
+            mismatch(r, "score " + r.score1 + ":" + r.score2 + " recorded " + in.score1 + ":" + in.score2);
+        } else if (r.p1.present && ((float) r.p1.x != in.x1 || (float) r.p1.y != in.y1)) {
+            mismatch(r, "p1 at " + r.p1.x + "," + r.p1.y + " recorded " + in.x1 + "," + in.y1);
+        } else if (r.p2.present && ((float) r.p2.x != in.x2 || (float) r.p2.y != in.y2)) {
+            mismatch(r, "p2 at " + r.p2.x + "," + r.p2.y + " recorded " + in.x2 + "," + in.y2);
+        }
+
+        if (r.p1.present) r.p1.rttMs = in.rtt1;
+        if (r.p2.present) r.p2.rttMs = in.rtt2;
+
+        // 이후 비교가 같은 차이로 계속 어긋나지 않도록 기록 쪽에 맞춤
+        r.score1 = in.score1;
+        r.score2 = in.score2;
+    }
+
+    private void mismatch(RoomState r, String what) {
+        mismatches++;
+        if (firstMismatch == null) {
+            firstMismatch = String.format(Locale.ROOT, "room %s @%.3fs: %s", r.name, clock.nanos() / 1e9, what);
+        }
+    }
+
+    private RoomState room(int id) {
+        return id > 0 && id < byId.length ? byId[id] : null; // 로그 중간부터 읽으면 모르는 방일 수 있음
+    }
+
+    private PlayerSlot slot(RoomState r) {
+        return in.slot == 1 ? r.p1 : r.p2;
+    }
+}
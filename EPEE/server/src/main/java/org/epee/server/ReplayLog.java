@@ -0,0 +1,315 @@
+package org.epee.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 레인 1개의 경기 기록 (틱 시각 + 입력 + 보낸 스냅샷) 을 세그먼트 파일에 이어 쓰는 로그, 레인 스레드 전용.
+ * 세그먼트는 MappedByteBuffer 라 기록 1건은 메모리 쓰기뿐이고 (시스템 콜 없음) 디스크 반영은 OS 가 한다.
+ * 파일 생성/매핑 (첫 세그먼트 포함), 끝 표시 + force 는 전부 부수 작업 스레드에서 하고 레인은 절대 기다리지 않는다:
+ * 다음 세그먼트는 절반쯤 찼을 때 미리 만들고, 그래도 아직 준비가 안 됐으면 레코드를 힙 임시 버퍼 (SPILL_BYTES) 에
+ * 쌓았다가 준비되면 옮긴다. 임시 버퍼도 차면 버리고 (replayDropped) 이어 쓸 때 GAP 레코드로 빈 곳을 표시한다.
+ * 파일은 매핑된 채로 줄이거나 지우지 않는다 (Windows 는 매핑이 살아있으면 둘 다 실패): 세그먼트 크기 그대로 남고,
+ * 안 쓴 뒷부분은 0 (= END) 이라 읽는 쪽은 END 에서 다음 세그먼트로 넘어간다. 종료 시 미리 만든 세그먼트는 헤더뿐인 채로 남는다.
+ *
+ * <pre>
+ * 파일: {name}-{00000}.epr (세그먼트 번호 순서대로 이어 읽음)
+ * 헤더: int MAGIC, short VERSION, int 세그먼트 번호
+ * 레코드: byte 종류 + 본문 (big-endian, 종류 0 = 기록 끝), at = 서버 Clock 시각 (ns)
+ *   TICK   long at                                  레인 틱 1회 (그 시점에 열린 방 전부)
+ *   OPEN   int room, long at, str name              room = 이 로그 안에서만 쓰는 방 번호
+ *   CLOSE  int room, long at
+ *   JOIN   int room, long at, byte slot, str nickname
+ *   LEAVE  int room, long at, byte slot
+ *   MOVE   int room, long at, byte slot, int seq, double x, double y, byte flags
+ *   ATTACK int room, long at, byte slot, int seq
+ *   STATE  int room, double rtt1, double rtt2, 스냅샷 (WireSnapshot.writeFull)
+ *   GAP    int dropped                              여기서 레코드 dropped 개가 빠짐 (이후 방 상태는 믿을 수 없음)
+ * str = byte 길이 + UTF-8 (최대 255 바이트, 글자 중간에서 안 자름), slot = 1(p1) / 2(p2), flags = WireFormat.flags
+ * </pre>
+ */
+final class ReplayLog {
+
+    static final int MAGIC = 0x45505231; // "EPR1"
+    static final short VERSION = 3; // 2: 시각이 epoch ms -> Clock ns, 3: GAP 레코드 (2 도 그대로 읽힘)
+    static final int HEADER_BYTES = 10;
+
+    static final byte END = 0;
+    static final byte TICK = 1;
+    static final byte OPEN = 2;
+    static final byte CLOSE = 3;
+    static final byte JOIN = 4;
+    static final byte LEAVE = 5;
+    static final byte MOVE = 6;
+    static final byte ATTACK = 7;
+    static final byte STATE = 8;
+    static final byte GAP = 9;
+
+    // ✅ 세그먼트 크기: PLATFORM 은 레인 몇 개가 모든 방을 쓰니 크게, VIRTUAL 은 방마다 로그라 작게
+    //    (방 1개는 초당 수 KB 라 1 MB 도 몇 분 분량, 열린 방마다 현재 + 미리 만든 세그먼트 2개까지 매핑됨)
+    static final int LANE_SEGMENT_BYTES = 64 << 20;
+    static final int ROOM_SEGMENT_BYTES = 1 << 20;
+
+    // 레코드 1건 최대 크기 (문자열 1개 255 바이트 포함), 남은 공간이 이보다 작으면 다음 세그먼트로
+    static final int MAX_RECORD = 512;
+
+    // 세그먼트가 준비될 때까지 레코드를 쌓아 둘 힙 버퍼 (처음 필요할 때 만듦), 세그먼트 절반을 넘지 않음
+    static final int SPILL_BYTES = 64 << 10;
+
+    private record Segment(int index, Path path, MappedByteBuffer buf) {}
+
+    private final Path dir;
+    private final String name;
+    private final int segmentBytes;
+    private final Executor sideWork;
+    private final ServerMetrics metrics;
+
+    // 문자열 인코딩 (레인 스레드 전용이라 재사용), 255 바이트 버퍼에 넘치면 글자 경계에서 멈춤
+    private final CharsetEncoder utf8 = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer str = ByteBuffer.allocate(255);
+
+    private Segment current;                 // null = 첫 세그먼트가 아직 준비 안 됨
+    private CompletableFuture<Segment> next; // 부수 작업 스레드가 만드는 중이거나 다 만든 다음 세그먼트
+    private int nextIndex = 0;
+    private ByteBuffer spill;                // 세그먼트를 기다리는 동안 쌓은 레코드
+    private int dropped = 0;                 // 임시 버퍼도 차서 버린 레코드 (다음 세그먼트에 GAP 으로 남김)
+    private int counted = 0;                 // current 에서 이미 metrics 에 더한 바이트
+    private int nextRoom = 1;
+    private boolean failed = false;
+
+    private ReplayLog(Path dir, String name, int segmentBytes, Executor sideWork, ServerMetrics metrics) {
+        this.dir = dir;
+        this.name = name;
+        this.segmentBytes = segmentBytes;
+        this.sideWork = sideWork;
+        this.metrics = metrics;
+    }
+
+    /**
+     * dir 아래에 name-00000.epr 부터 기록. 바로 돌아오고 첫 세그먼트는 sideWork 에서 만든다
+     * (그 사이 레코드는 임시 버퍼로, 못 만들면 스택 트레이스 후 기록 없이 진행).
+     */
+    static ReplayLog open(Path dir, String name, int segmentBytes, Executor sideWork, ServerMetrics metrics) {
+        if (segmentBytes < MAX_RECORD * 4) throw new IllegalArgumentException("segment too small: " + segmentBytes);
+        ReplayLog log = new ReplayLog(dir, name, segmentBytes, sideWork, metrics);
+        log.prepareNext();
+        return log;
+    }
+
+    // ---- 레코드 ----
+
+    void tick(long at) {
+        ByteBuffer b = reserve();
+        if (b == null) return;
+        b.put(TICK).putLong(at);
+
+        // 카운터는 틱마다 한 번만 (레코드마다 LongAdder 를 건드리지 않도록), 임시 버퍼 분은 옮긴 뒤에 셈
+        if (current == null) return;
+        int pos = current.buf().position();
+        metrics.replayBytes.add(pos - counted);
+        counted = pos;
+    }
+
+    /** @return 이 로그 안에서 쓰는 방 번호 */
+    int openRoom(String room, long at) {
+        int id = nextRoom++;
+        ByteBuffer b = reserve();
+        if (b == null) return id;
+        b.put(OPEN).putInt(id).putLong(at);
+        putString(b, room);
+        return id;
+    }
+
+    void closeRoom(int room, long at) {
+        ByteBuffer b = reserve();
+        if (b == null) return;
+        b.put(CLOSE).putInt(room).putLong(at);
+    }
+
+    void join(int room, long at, PlayerSlot p) {
+        ByteBuffer b = reserve();
+        if (b == null) return;
+        b.put(JOIN).putInt(room).putLong(at).put(slot(p));
+        putString(b, p.nickname);
+    }
+
+    void leave(int room, long at, PlayerSlot p) {
+        ByteBuffer b = reserve();
+        if (b == null) return;
+        b.put(LEAVE).putInt(room).putLong(at).put(slot(p));
+    }
+
+    void move(int room, long at, PlayerSlot p, int seq, double x, double y, boolean facingRight, boolean attacking) {
+        ByteBuffer b = reserve();
+        if (b == null) return;
+        b.put(MOVE).putInt(room).putLong(at).put(slot(p)).putInt(seq)
+                .putDouble(x).putDouble(y).put((byte) WireFormat.flags(true, facingRight, attacking));
+    }
+
+    void attack(int room, long at, PlayerSlot p, int seq) {
+        ByteBuffer b = reserve();
+        if (b == null) return;
+        b.put(ATTACK).putInt(room).putLong(at).put(slot(p)).putInt(seq);
+    }
+
+    // ✅ 보낸 스냅샷 그대로 + 그때의 RTT 추정치 (렉 보정 되감기 재현용)
+    void state(int room, double rtt1, double rtt2, WireSnapshot s) {
+        ByteBuffer b = reserve();
+        if (b == null) return;
+        b.put(STATE).putInt(room).putDouble(rtt1).putDouble(rtt2);
+        s.writeFull(b);
+    }
+
+    /**
+     * 레인 종료 시: 남은 임시 버퍼를 옮기고 끝 표시 + 디스크 반영은 부수 작업 스레드에서 (레인은 안 기다림).
+     * 아직 안 쓴 미리 만든 세그먼트는 헤더뿐인 채로 둠 (읽을 때 건너뜀).
+     */
+    void close() {
+        Segment done = current;
+        CompletableFuture<Segment> pending = next;
+        ByteBuffer rest = spill != null && spill.position() > 0 ? spill.flip() : null;
+        int lost = dropped;
+        if (done != null) metrics.replayBytes.add(done.buf().position() - counted);
+        current = null;
+        next = null;
+        spill = null;
+        failed = true; // 이후 기록은 무시
+
+        sideWork.execute(() -> {
+            if (done != null) finish(done);
+            if ((rest == null && lost == 0) || pending == null) return;
+            try {
+                Segment s = pending.join(); // 부수 작업 스레드라 기다려도 됨
+                drain(s, rest, lost);
+                metrics.replayBytes.add(s.buf().position() - HEADER_BYTES);
+                finish(s);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // ---- 세그먼트 ----
+
+    // ✅ 레인은 여기서 절대 기다리지 않음: 세그먼트가 없으면 임시 버퍼, 그것도 차면 null (버림)
+    private ByteBuffer reserve() {
+        if (failed) return null;
+        if (current != null && current.buf().remaining() >= MAX_RECORD) {
+            MappedByteBuffer b = current.buf();
+            if (next == null && b.position() > segmentBytes / 2) prepareNext();
+            return b;
+        }
+        if (advance()) return current.buf();
+        return spill();
+    }
+
+    // 다음 세그먼트가 이미 준비됐으면 넘어감 (다 쓴 것은 부수 작업 스레드에서 마무리)
+    private boolean advance() {
+        if (next == null) prepareNext();
+        if (!next.isDone()) return false;
+
+        Segment n;
+        try {
+            n = next.join(); // 이미 끝난 future 라 안 기다림
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            failed = true; // 디스크 문제로 게임을 멈추지는 않음 (이후 기록만 안 함)
+            spill = null;
+            return false;
+        } finally {
+            next = null;
+        }
+
+        Segment done = current;
+        current = n;
+        if (done != null) {
+            metrics.replayBytes.add(done.buf().position() - counted);
+            sideWork.execute(() -> finish(done));
+        }
+        counted = n.buf().position();
+
+        drain(n, spill != null ? spill.flip() : null, dropped);
+        if (spill != null) spill.clear();
+        dropped = 0;
+        return true;
+    }
+
+    private ByteBuffer spill() {
+        if (spill == null) spill = ByteBuffer.allocate(Math.min(SPILL_BYTES, segmentBytes / 2));
+        if (spill.remaining() >= MAX_RECORD) {
+            if (spill.position() == 0) metrics.replayStalls.increment(); // 세그먼트 대기 1번 (레코드마다 아님)
+            return spill;
+        }
+        dropped++;
+        metrics.replayDropped.increment();
+        return null;
+    }
+
+    // 새 세그먼트 앞에: 기다리는 동안 쌓은 레코드, 그 뒤에 버린 게 있으면 GAP
+    private static void drain(Segment s, ByteBuffer rest, int lost) {
+        MappedByteBuffer b = s.buf();
+        if (rest != null) b.put(rest);
+        if (lost > 0) b.put(GAP).putInt(lost);
+    }
+
+    private void prepareNext() {
+        int index = nextIndex++;
+        next = CompletableFuture.supplyAsync(() -> {
+            try {
+                return map(index);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, sideWork);
+    }
+
+    private Segment map(int index) throws IOException {
+        Files.createDirectories(dir);
+        Path path = dir.resolve(String.format(Locale.ROOT, "%s-%05d.epr", name, index));
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            buf.putInt(MAGIC).putShort(VERSION).putInt(index);
+            return new Segment(index, path, buf); // 채널을 닫아도 매핑은 유지됨
+        }
+    }
+
+    // 다 쓴 세그먼트: 끝 표시를 쓰고 디스크로 내림 (부수 작업 스레드), 파일 길이는 그대로
+    private static void finish(Segment s) {
+        try {
+            MappedByteBuffer b = s.buf();
+            b.put(b.position(), END); // 새 파일이라 이미 0 이지만 명시적으로 (reserve 가 MAX_RECORD 만큼 남겨 둠)
+            b.force();
+        } catch (UncheckedIOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static byte slot(PlayerSlot p) {
+        return PlayerSlot.P1.equals(p.id) ? (byte) 1 : (byte) 2;
+    }
+
+    // ✅ 255 바이트를 넘으면 UTF-8 글자 경계에서 자름 (한글 닉네임이 깨진 바이트로 끝나지 않도록)
+    private void putString(ByteBuffer b, String s) {
+        str.clear();
+        utf8.reset();
+        utf8.encode(CharBuffer.wrap(s == null ? "" : s), str, true); // 넘치면 OVERFLOW 로 멈춤, 결과는 무시
+        str.flip();
+        b.put((byte) str.remaining()).put(str);
+    }
+}
@@ -0,0 +1,73 @@
+package org.epee.server;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 녹화 디렉터리 (-Depee.replayDir 로 남긴 것) 의 레인 로그들을 코어 수만큼 병렬로 다시 돌려서
+ * 지금 규칙의 판정이 녹화 당시와 같은지 검사한다. 규칙을 바꾼 뒤 실제 경기 묶음으로 회귀 확인용.
+ *
+ * <pre>
+ * gradlew :server:replay --args="replays"            (하위 디렉터리까지 전부)
+ * gradlew :server:replay --args="replays --threads=4"
+ * </pre>
+ *
+ * 불일치가 하나라도 있으면 종료 코드 1.
+ */
+public class ReplayMain {
+
+    public static void main(String[] args) throws Exception {
+        Path dir = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (String a : args) {
+            if (a.startsWith("--threads=")) threads = Integer.parseInt(a.substring("--threads=".length()));
+            else dir = Path.of(a);
+        }
+        if (dir == null) {
+            System.err.println("usage: ReplayMain <replayDir> [--threads=N]");
+            System.exit(2);
+        }
+
+        Map<String, List<Path>> logs = ReplayReader.logs(dir);
+        System.out.printf(Locale.ROOT, "replay: %s logs=%d threads=%d%n", dir, logs.size(), threads);
+
+        long t0 = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<ReplayEngine.Result>> runs = new ArrayList<>();
+        for (Map.Entry<String, List<Path>> e : logs.entrySet()) {
+            runs.add(pool.submit(() -> ReplayEngine.run(e.getKey(), e.getValue())));
+        }
+
+        long records = 0, snapshots = 0, touches = 0, mismatches = 0, spanNanos = 0;
+        int rooms = 0;
+        for (Future<ReplayEngine.Result> f : runs) {
+            ReplayEngine.Result r = f.get();
+            System.out.printf(Locale.ROOT, "%-32s rooms=%d records=%d touches=%d mismatches=%d  %.1f ms%n",
+                    r.log(), r.rooms(), r.records(), r.touches(), r.mismatches(), r.nanos() / 1e6);
+            if (r.firstMismatch() != null) System.out.println("    first mismatch: " + r.firstMismatch());
+            if (r.gaps() > 0) System.out.println("    gaps: " + r.gaps() + " (rooms open at a gap were not verified)");
+
+            records += r.records();
+            snapshots += r.snapshots();
+            touches += r.touches();
+            mismatches += r.mismatches();
+            spanNanos += r.spanNanos();
+            rooms += r.rooms();
+        }
+        pool.shutdown();
+
+        double wallMs = (System.nanoTime() - t0) / 1e6;
+        System.out.println("---- summary ----");
+        System.out.printf(Locale.ROOT, "rooms=%d snapshots=%d touches=%d mismatches=%d%n", rooms, snapshots, touches, mismatches);
+        System.out.printf(Locale.ROOT, "%d records in %.1f ms (%.1f M records/s, %.0fx real time)%n",
+                records, wallMs, records / wallMs / 1000, wallMs > 0 ? spanNanos / 1e6 / wallMs : 0);
+
+        System.exit(mismatches == 0 ? 0 : 1);
+    }
+}
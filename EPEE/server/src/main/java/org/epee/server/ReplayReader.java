@@ -0,0 +1,164 @@
+package org.epee.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * {@link ReplayLog} 세그먼트들을 기록 순서대로 읽는다. 레코드 1건마다 필드만 덮어쓰고 (새 객체는 문자열뿐),
+ * 세그먼트는 읽기 전용으로 매핑해서 파일 크기만큼 힙에 올리지 않는다. 스레드 1개 전용.
+ */
+final class ReplayReader {
+
+    private final List<Path> segments;
+    private int nextSegment = 0;
+    private ByteBuffer buf = null;
+
+    // ✅ 마지막으로 읽은 레코드 (type 에 해당하는 필드만 유효)
+    byte type;
+    int room;
+    long at;
+    byte slot;
+    String text;      // OPEN: 방 이름, JOIN: 닉네임
+    int dropped;      // GAP: 빠진 레코드 수
+    int seq;
+    double x;
+    double y;
+    byte flags;
+    double rtt1;
+    double rtt2;
+    int score1;       // STATE: 보낸 스냅샷 값
+    int score2;
+    long gameStartTime;
+    float x1;
+    float y1;
+    float x2;
+    float y2;
+
+    ReplayReader(List<Path> segments) {
+        this.segments = segments;
+    }
+
+    /** dir 아래 *.epr 를 로그(디렉터리 + 레인 이름)별로 묶음, 각 목록은 세그먼트 번호 순 */
+    static Map<String, List<Path>> logs(Path dir) throws IOException {
+        Map<String, List<Path>> logs = new TreeMap<>();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.filter(p -> p.getFileName().toString().endsWith(".epr")).sorted().forEach(p -> {
+                String file = p.getFileName().toString();
+                String lane = file.substring(0, file.lastIndexOf('-')); // lane-0-00003.epr -> lane-0
+                String key = dir.relativize(p.getParent()).resolve(lane).toString();
+                logs.computeIfAbsent(key, k -> new ArrayList<>()).add(p);
+            });
+        }
+        return logs;
+    }
+
+    /** @return 다음 레코드를 읽었으면 true, 모든 세그먼트 끝이면 false */
+    boolean next() throws IOException {
+        while (true) {
+            if (buf == null || !buf.hasRemaining() || (type = buf.get()) == ReplayLog.END) {
+                if (!openNext()) return false;
+                continue;
+            }
+            read(buf);
+            return true;
+        }
+    }
+
+    private boolean openNext() throws IOException {
+        if (nextSegment >= segments.size()) return false;
+        Path path = segments.get(nextSegment++);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (buf.remaining() < ReplayLog.HEADER_BYTES || buf.getInt() != ReplayLog.MAGIC) {
+            throw new IOException("not a replay segment: " + path);
+        }
+        short version = buf.getShort();
+        if (version < 2 || version > ReplayLog.VERSION) throw new IOException("unsupported replay version " + version + ": " + path);
+        buf.getInt(); // 세그먼트 번호 (파일 이름과 같음)
+        return true;
+    }
+
+    private void read(ByteBuffer b) throws IOException {
+        switch (type) {
+            case ReplayLog.TICK -> at = b.getLong();
+            case ReplayLog.OPEN -> {
+                room = b.getInt();
+                at = b.getLong();
+                text = getString(b);
+            }
+            case ReplayLog.CLOSE -> {
+                room = b.getInt();
+                at = b.getLong();
+            }
+            case ReplayLog.JOIN -> {
+                room = b.getInt();
+                at = b.getLong();
+                slot = b.get();
+                text = getString(b);
+            }
+            case ReplayLog.LEAVE -> {
+                room = b.getInt();
+                at = b.getLong();
+                slot = b.get();
+            }
+            case ReplayLog.MOVE -> {
+                room = b.getInt();
+                at = b.getLong();
+                slot = b.get();
+                seq = b.getInt();
+                x = b.getDouble();
+                y = b.getDouble();
+                flags = b.get();
+            }
+            case ReplayLog.ATTACK -> {
+                room = b.getInt();
+                at = b.getLong();
+                slot = b.get();
+                seq = b.getInt();
+            }
+            case ReplayLog.GAP -> dropped = b.getInt();
+            case ReplayLog.STATE -> {
+                room = b.getInt();
+                rtt1 = b.getDouble();
+                rtt2 = b.getDouble();
+                readSnapshot(b);
+            }
+            default -> throw new IOException("unknown replay record " + type + " at " + (b.position() - 1));
+        }
+    }
+
+    // WireSnapshot.writeFull 순서 그대로
+    private void readSnapshot(ByteBuffer b) {
+        b.get(); // OP_STATE
+        b.getInt(); // 스냅샷 seq
+        score1 = b.getShort();
+        score2 = b.getShort();
+        gameStartTime = b.getLong();
+        b.get();
+        x1 = b.getFloat();
+        y1 = b.getFloat();
+        b.getInt();
+        b.get();
+        x2 = b.getFloat();
+        y2 = b.getFloat();
+        b.getInt();
+    }
+
+    private static String getString(ByteBuffer b) {
+        int len = b.get() & 0xff;
+        byte[] bytes = new byte[len];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,27 @@
+package org.epee.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 방 1개의 계측값. 쓰는 쪽은 그 방의 레인 스레드뿐이고, 읽는 쪽은 스크랩(HTTP/JMX) 스레드.
+ */
+final class RoomMetrics {
+
+    final String room;
+
+    final LongAdder messagesIn = new LongAdder(); // 이 방으로 들어온 입력/채팅 명령
+    final LongAdder snapshots = new LongAdder();
+    final LongAdder bytesOut = new LongAdder();   // 스냅샷 + 채팅 (수신자 수만큼 곱한 값)
+
+    volatile long lastTickNanos;
+    volatile long maxTickNanos;
+
+    RoomMetrics(String room) {
+        this.room = room;
+    }
+
+    void tick(long nanos) {
+        lastTickNanos = nanos;
+        if (nanos > maxTickNanos) maxTickNanos = nanos; // 레인 1개만 씀
+    }
+}
@@ -0,0 +1,149 @@
+package org.epee.server;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ObjectName;
+
+/**
+ * 서버 계측값 모음. 전부 LongAdder / {@link Histogram} 이라 운영 중 켜둬도 되고,
+ * 메시지 1건 처리에 할당이 생기지 않는다. JMX({@link ServerMetricsMBean})와
+ * {@link MetricsEndpoint}(텍스트) 두 군데로 읽어간다.
+ */
+public final class ServerMetrics implements ServerMetricsMBean {
+
+    // ✅ 카운터
+    final LongAdder connections = new LongAdder();
+    final LongAdder textMessagesIn = new LongAdder();
+    final LongAdder binaryMessagesIn = new LongAdder();
+    final LongAdder bytesIn = new LongAdder();
+    final LongAdder decodeErrors = new LongAdder();
+    final LongAdder serializeErrors = new LongAdder();  // JSON 스냅샷 직렬화 실패 (그 스냅샷은 JSON 수신자에게 안 감)
+    final LongAdder rateLimited = new LongAdder();     // 토큰 버킷에 막혀 버린 메시지
+    final LongAdder chatFrames = new LongAdder();      // 방마다 모아서 보낸 채팅 프레임
+    final LongAdder chatLines = new LongAdder();       // 그 안에 담긴 채팅 줄
+    final LongAdder snapshotsSent = new LongAdder();
+    final LongAdder bytesOut = new LongAdder();
+    final LongAdder replayBytes = new LongAdder();     // 리플레이 로그에 쓴 바이트
+    final LongAdder replayStalls = new LongAdder();    // 세그먼트가 준비 안 돼서 레코드를 임시 버퍼에 쌓기 시작한 횟수 (레인은 안 기다림)
+    final LongAdder replayDropped = new LongAdder();   // 임시 버퍼도 차서 버린 레코드 (로그에 GAP 으로 남음)
+
+    // ✅ 히스토그램 (ns 단위는 이름에 _nanos)
+    final Histogram decodeNanos = new Histogram();     // JSON 메시지 디코딩
+    final Histogram handlerNanos = new Histogram();    // 레인에서 명령 1개 실행 (입력 적용/입장/채팅)
+    final Histogram serializeNanos = new Histogram();  // JSON 스냅샷 직렬화
+    final Histogram broadcastNanos = new Histogram();  // 스냅샷 1회 전체 (캡처 + 인코딩 + fan-out)
+    final Histogram tickNanos = new Histogram();       // 방 1개 틱
+    final Histogram fanOut = new Histogram();          // 스냅샷 1회 수신자 수
+    final Histogram snapshotBytes = new Histogram();   // 스냅샷 1회 총 전송 바이트
+    final Histogram sendQueueDepth = new Histogram();  // 스냅샷 보낼 때 소켓 송신 큐에 쌓인 프레임 수
+
+    // ✅ 방별 (레인이 방 생성/삭제 때만 등록/해제)
+    final Map<String, RoomMetrics> rooms = new ConcurrentHashMap<>();
+
+    void openRoom(RoomMetrics m) {
+        rooms.put(m.room, m);
+    }
+
+    void closeRoom(RoomMetrics m) {
+        rooms.remove(m.room, m);
+    }
+
+    public void registerJmx(String objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(objectName));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override public long getConnections() { return connections.sum(); }
+    @Override public long getRooms() { return rooms.size(); }
+    @Override public long getTextMessagesIn() { return textMessagesIn.sum(); }
+    @Override public long getBinaryMessagesIn() { return binaryMessagesIn.sum(); }
+    @Override public long getBytesIn() { return bytesIn.sum(); }
+    @Override public long getBytesOut() { return bytesOut.sum(); }
+    @Override public long getSnapshotsSent() { return snapshotsSent.sum(); }
+    @Override public long getDecodeErrors() { return decodeErrors.sum(); }
+    @Override public long getSerializeErrors() { return serializeErrors.sum(); }
+    @Override public long getRateLimited() { return rateLimited.sum(); }
+    @Override public long getDecodeP99Micros() { return decodeNanos.percentile(99) / 1000; }
+    @Override public long getHandlerP99Micros() { return handlerNanos.percentile(99) / 1000; }
+    @Override public long getSerializeP99Micros() { return serializeNanos.percentile(99) / 1000; }
+    @Override public long getTickP99Micros() { return tickNanos.percentile(99) / 1000; }
+    @Override public long getTickMaxMicros() { return tickNanos.max() / 1000; }
+    @Override public long getSendQueueDepthMax() { return sendQueueDepth.max(); }
+
+    @Override
+    public String getTextReport() {
+        return textReport(20);
+    }
+
+    /** Prometheus 텍스트 형식 비슷하게 (방별 값은 bytesOut 상위 topRooms 개만) */
+    public String textReport(int topRooms) {
+        StringBuilder sb = new StringBuilder(4096);
+        counter(sb, "epee_connections", connections.sum());
+        counter(sb, "epee_rooms", rooms.size());
+        counter(sb, "epee_messages_in_total{wire=\"text\"}", textMessagesIn.sum());
+        counter(sb, "epee_messages_in_total{wire=\"binary\"}", binaryMessagesIn.sum());
+        counter(sb, "epee_bytes_in_total", bytesIn.sum());
+        counter(sb, "epee_decode_errors_total", decodeErrors.sum());
+        counter(sb, "epee_serialize_errors_total", serializeErrors.sum());
+        counter(sb, "epee_rate_limited_total", rateLimited.sum());
+        counter(sb, "epee_chat_frames_total", chatFrames.sum());
+        counter(sb, "epee_chat_lines_total", chatLines.sum());
+        counter(sb, "epee_snapshots_sent_total", snapshotsSent.sum());
+        counter(sb, "epee_bytes_out_total", bytesOut.sum());
+        counter(sb, "epee_replay_bytes_total", replayBytes.sum());
+        counter(sb, "epee_replay_stalls_total", replayStalls.sum());
+        counter(sb, "epee_replay_dropped_total", replayDropped.sum());
+
+        histogram(sb, "epee_decode_nanos", decodeNanos);
+        histogram(sb, "epee_handler_nanos", handlerNanos);
+        histogram(sb, "epee_serialize_nanos", serializeNanos);
+        histogram(sb, "epee_broadcast_nanos", broadcastNanos);
+        histogram(sb, "epee_tick_nanos", tickNanos);
+        histogram(sb, "epee_fanout_recipients", fanOut);
+        histogram(sb, "epee_snapshot_bytes", snapshotBytes);
+        histogram(sb, "epee_send_queue_depth", sendQueueDepth);
+
+        List<RoomMetrics> top = new ArrayList<>(rooms.values());
+        top.sort(Comparator.comparingLong((RoomMetrics m) -> m.bytesOut.sum()).reversed());
+        for (RoomMetrics m : top.subList(0, Math.min(topRooms, top.size()))) {
+            String label = "{room=\"" + escape(m.room) + "\"}";
+            counter(sb, "epee_room_messages_in_total" + label, m.messagesIn.sum());
+            counter(sb, "epee_room_snapshots_total" + label, m.snapshots.sum());
+            counter(sb, "epee_room_bytes_out_total" + label, m.bytesOut.sum());
+            counter(sb, "epee_room_tick_nanos_last" + label, m.lastTickNanos);
+            counter(sb, "epee_room_tick_nanos_max" + label, m.maxTickNanos);
+        }
+        return sb.toString();
+    }
+
+    private static void counter(StringBuilder sb, String name, long value) {
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void histogram(StringBuilder sb, String name, Histogram h) {
+        sb.append(name).append("_count ").append(h.count()).append('\n');
+        sb.append(name).append("_sum ").append(h.sum()).append('\n');
+        sb.append(name).append("_max ").append(h.max()).append('\n');
+        quantile(sb, name, "0.5", h.percentile(50));
+        quantile(sb, name, "0.9", h.percentile(90));
+        quantile(sb, name, "0.99", h.percentile(99));
+        quantile(sb, name, "0.999", h.percentile(99.9));
+    }
+
+    private static void quantile(StringBuilder sb, String name, String q, long value) {
+        sb.append(name).append("{quantile=\"").append(q).append("\"} ").append(value).append('\n');
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,39 @@
+package org.epee.server;
+
+/** JMX 노출용 (jconsole / VisualVM 에서 org.epee:type=GameServer 로 보임), 시간 값은 마이크로초 */
+public interface ServerMetricsMBean {
+
+    long getConnections();
+
+    long getRooms();
+
+    long getTextMessagesIn();
+
+    long getBinaryMessagesIn();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    long getSnapshotsSent();
+
+    long getDecodeErrors();
+
+    long getSerializeErrors();
+
+    long getRateLimited();
+
+    long getDecodeP99Micros();
+
+    long getHandlerP99Micros();
+
+    long getSerializeP99Micros();
+
+    long getTickP99Micros();
+
+    long getTickMaxMicros();
+
+    long getSendQueueDepthMax();
+
+    String getTextReport();
+}
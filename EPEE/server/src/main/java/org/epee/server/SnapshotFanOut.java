@@ -0,0 +1,104 @@
+package org.epee.server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.server.WebSocketServer;
+
+/**
+ * 스냅샷 1개를 수신자 그룹(JSON / 키프레임 / 델타 기준점별)마다 한 번만 인코딩하고,
+ * WebSocketServer.broadcast(..., Collection) 로 그룹 전체에 보낸다. 라이브러리는 그 호출 안에서
+ * Framedata 를 draft 마다 1번 만들지만 (JSON 은 UTF-8 변환도 거기서 1번), 와이어 바이트 (헤더 + 페이로드 복사)
+ * 는 연결마다 새 버퍼로 만든다. 즉 그룹당 줄어드는 건 인코딩/직렬화이고, 연결당 복사는 남는다.
+ * 인코딩 버퍼와 수신자 리스트를 재사용하므로 방 레인마다 1개씩 두고 그 레인 스레드에서만 사용할 것.
+ */
+final class SnapshotFanOut {
+
+    private final WebSocketServer server;
+
+    // ✅ 재사용 버퍼: broadcast 가 수신자별 전송 버퍼로 복사한 뒤 돌아오므로 바로 다시 써도 됨
+    private final ByteBuffer buf = ByteBuffer.allocate(Math.max(WireFormat.STATE_SIZE, WireFormat.STATE_DELTA_MAX_SIZE));
+
+    private final List<WebSocket> jsonTargets = new ArrayList<>();
+    private final List<WebSocket> fullTargets = new ArrayList<>();
+    private final List<WebSocket> deltaTargets = new ArrayList<>();
+    private final List<WireSnapshot> deltaBases = new ArrayList<>(); // deltaTargets 와 같은 인덱스
+    private final List<WebSocket> group = new ArrayList<>();
+
+    SnapshotFanOut(WebSocketServer server) {
+        this.server = server;
+    }
+
+    void addJson(WebSocket conn) {
+        jsonTargets.add(conn);
+    }
+
+    void addFull(WebSocket conn) {
+        fullTargets.add(conn);
+    }
+
+    void addDelta(WebSocket conn, WireSnapshot base) {
+        deltaTargets.add(conn);
+        deltaBases.add(base);
+    }
+
+    boolean needsJson() {
+        return !jsonTargets.isEmpty();
+    }
+
+    /** JSON 을 못 만들었을 때: JSON 수신자는 이번 스냅샷에서 뺌, 뺀 수 반환 */
+    int dropJson() {
+        int n = jsonTargets.size();
+        jsonTargets.clear();
+        return n;
+    }
+
+    /**
+     * 모은 수신자들에게 전송하고 리스트를 비움 (json 은 needsJson() 일 때만 필요, 없으면 먼저 dropJson())
+     * @return 전송 바이트 합계 (프레임 크기 x 수신자 수, JSON 은 글자 수로 근사)
+     */
+    long send(WireSnapshot cur, String json) {
+        long bytes = 0;
+        try {
+            if (!jsonTargets.isEmpty()) {
+                server.broadcast(json, jsonTargets);
+                bytes += (long) json.length() * jsonTargets.size();
+            }
+
+            if (!fullTargets.isEmpty()) {
+                buf.clear();
+                cur.writeFull(buf);
+                bytes += (long) buf.position() * fullTargets.size();
+                server.broadcast(buf.flip(), fullTargets);
+            }
+
+            // ✅ 같은 기준점을 ack 한 수신자끼리 묶어서 델타 1번 인코딩
+            for (int i = 0; i < deltaTargets.size(); i++) {
+                WireSnapshot base = deltaBases.get(i);
+                if (base == null) continue; // 이미 보낸 그룹
+
+                group.clear();
+                for (int j = i; j < deltaTargets.size(); j++) {
+                    if (deltaBases.get(j) == base) {
+                        group.add(deltaTargets.get(j));
+                        deltaBases.set(j, null);
+                    }
+                }
+
+                buf.clear();
+                cur.writeDelta(buf, base);
+                bytes += (long) buf.position() * group.size();
+                server.broadcast(buf.flip(), group);
+            }
+        } finally {
+            jsonTargets.clear();
+            fullTargets.clear();
+            deltaTargets.clear();
+            deltaBases.clear();
+            group.clear();
+        }
+        return bytes;
+    }
+}
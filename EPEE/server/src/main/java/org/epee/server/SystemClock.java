@@ -0,0 +1,20 @@
+package org.epee.server;
+
+/**
+ * 운영용 {@link Clock}: System.nanoTime 을 생성 시점 기준으로 옮긴 값.
+ * 0 부터 시작하므로 "아직 없음" 을 0 / -1 로 두던 필드들을 그대로 쓸 수 있다.
+ */
+final class SystemClock implements Clock {
+
+    private final long origin = System.nanoTime();
+
+    @Override
+    public long nanos() {
+        return System.nanoTime() - origin;
+    }
+
+    @Override
+    public long wallMillis() {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,21 @@
+package org.epee.server;
+
+import java.util.Locale;
+
+/**
+ * 방 레인을 어떤 스레드로 돌릴지 (-Depee.threads=platform|virtual).
+ * <ul>
+ *   <li>PLATFORM: 코어 수만큼 플랫폼 스레드 레인, 방은 이름 해시로 샤딩</li>
+ *   <li>VIRTUAL : 방 1개 = 가상 스레드 1개 (JDK 21+, 방이 비면 스레드도 종료)</li>
+ * </ul>
+ * 블로킹 부수 작업(로그/저장/봇)은 두 모드 모두 별도 side executor 로 보낸다.
+ */
+public enum ThreadMode {
+    PLATFORM,
+    VIRTUAL;
+
+    public static ThreadMode parse(String s) {
+        if (s == null || s.isBlank()) return PLATFORM;
+        return valueOf(s.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,32 @@
+package org.epee.server;
+
+/**
+ * 토큰 버킷 1개: 초당 ratePerSecond 개씩 채워지고 최대 burst 개까지 모아둘 수 있다.
+ * 락 없음 - 소켓 1개의 메시지는 항상 같은 워커 스레드가 처리하므로 연결마다 1개씩 두고 그 스레드에서만 쓴다.
+ */
+final class TokenBucket {
+
+    private final double ratePerNano;
+    private final double burst;
+
+    private double tokens;
+    private long last;
+
+    TokenBucket(double ratePerSecond, double burst, long nowNanos) {
+        this.ratePerNano = ratePerSecond / 1e9;
+        this.burst = burst;
+        this.tokens = burst; // 처음엔 가득
+        this.last = nowNanos;
+    }
+
+    boolean tryTake(long nowNanos) {
+        long dt = nowNanos - last;
+        if (dt > 0) {
+            tokens = Math.min(burst, tokens + dt * ratePerNano);
+            last = nowNanos;
+        }
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+package org.epee.server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * JDK 21 가상 스레드 API 를 리플렉션으로 호출 (기본 빌드는 17 툴체인이라 직접 참조 불가).
+ * 17 에서 실행하면 {@link #isSupported()} 가 false.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {}
+
+    static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /** Thread.ofVirtual().name(prefix, 0).factory() */
+    static ThreadFactory factory(String prefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual threads require JDK 21+", e);
+        }
+    }
+
+    /** Executors.newVirtualThreadPerTaskExecutor() */
+    static ExecutorService perTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual threads require JDK 21+", e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.epee.server;
+
+/**
+ * 바이너리 프레임 레이아웃 (big-endian).
+ * 접속 시 {@link #HEADER} 로 협상하고, 협상 안 된 연결은 기존 JSON 그대로 사용한다.
+ *
+ * <pre>
+ * MOVE        (C->S) : op(1) seq(4) ack(4) x(f4) y(f4) flags(1)        = 18 bytes
+ * ATTACK      (C->S) : op(1) seq(4) ack(4)                             =  9 bytes
+ * ACK         (C->S) : op(1) ack(4)                                    =  5 bytes
+ * STATE       (S->C) : op(1) snap(4) score1(2) score2(2) start(8)
+ *                      + [flags(1) x(f4) y(f4) lastSeq(4)] x 2         = 43 bytes
+ * STATE_DELTA (S->C) : op(1) snap(4) base(4) mask(2) + 바뀐 필드만     <= 47 bytes
+ * </pre>
+ *
+ * ack = 클라가 마지막으로 적용한 스냅샷 번호. 서버는 그 스냅샷 대비 델타를 보내고,
+ * ack 가 없거나 너무 오래됐거나 키프레임 주기면 STATE 전체를 보낸다.
+ */
+final class WireFormat {
+
+    static final String HEADER = "X-Epee-Wire";
+    static final String VERSION = "bin1";
+
+    static final byte OP_MOVE = 0x01;
+    static final byte OP_ATTACK = 0x02;
+    static final byte OP_ACK = 0x03;
+    static final byte OP_STATE = 0x10;
+    static final byte OP_STATE_DELTA = 0x11;
+
+    static final int MOVE_SIZE = 18;
+    static final int ATTACK_SIZE = 9;
+    static final int ACK_SIZE = 5;
+    static final int STATE_SIZE = 43;
+    static final int STATE_DELTA_MAX_SIZE = 47;
+
+    // flags 비트
+    static final int F_PRESENT = 1;
+    static final int F_FACING_RIGHT = 1 << 1;
+    static final int F_ATTACKING = 1 << 2;
+
+    private WireFormat() {}
+
+    /** C->S 프레임의 정해진 길이 (op 바이트 포함), 모르는 op 면 -1 */
+    static int inboundSize(byte op) {
+        return switch (op) {
+            case OP_MOVE -> MOVE_SIZE;
+            case OP_ATTACK -> ATTACK_SIZE;
+            case OP_ACK -> ACK_SIZE;
+            default -> -1;
+        };
+    }
+
+    static int flags(boolean present, boolean facingRight, boolean attacking) {
+        int f = 0;
+        if (present) f |= F_PRESENT;
+        if (facingRight) f |= F_FACING_RIGHT;
+        if (attacking) f |= F_ATTACKING;
+        return f;
+    }
+}
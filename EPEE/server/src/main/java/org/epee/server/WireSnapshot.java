@@ -0,0 +1,93 @@
+package org.epee.server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 바이너리 스냅샷 1개의 필드값 (방마다 링 버퍼로 보관해서 델타 기준점으로 사용).
+ * 필드 순서 = 델타 마스크 비트 순서.
+ */
+final class WireSnapshot {
+
+    // 델타 마스크 비트
+    static final int D_SCORE1 = 1;
+    static final int D_SCORE2 = 1 << 1;
+    static final int D_START = 1 << 2;
+    static final int D_P1_FLAGS = 1 << 3;
+    static final int D_P1_X = 1 << 4;
+    static final int D_P1_Y = 1 << 5;
+    static final int D_P1_SEQ = 1 << 6;
+    static final int D_P2_FLAGS = 1 << 7;
+    static final int D_P2_X = 1 << 8;
+    static final int D_P2_Y = 1 << 9;
+    static final int D_P2_SEQ = 1 << 10;
+
+    int seq = -1; // -1 = 비어있음
+    short score1;
+    short score2;
+    long gameStartTime;
+    byte flags1;
+    float x1;
+    float y1;
+    int seq1;
+    byte flags2;
+    float x2;
+    float y2;
+    int seq2;
+
+    void capture(int seq, int score1, int score2, long gameStartTime, PlayerSlot p1, PlayerSlot p2) {
+        this.seq = seq;
+        this.score1 = (short) score1;
+        this.score2 = (short) score2;
+        this.gameStartTime = gameStartTime;
+
+        this.flags1 = !p1.present ? 0 : (byte) WireFormat.flags(true, p1.facingRight, p1.attacking);
+        this.x1 = !p1.present ? 0f : (float) p1.x;
+        this.y1 = !p1.present ? 0f : (float) p1.y;
+        this.seq1 = !p1.present ? 0 : p1.seq;
+
+        this.flags2 = !p2.present ? 0 : (byte) WireFormat.flags(true, p2.facingRight, p2.attacking);
+        this.x2 = !p2.present ? 0f : (float) p2.x;
+        this.y2 = !p2.present ? 0f : (float) p2.y;
+        this.seq2 = !p2.present ? 0 : p2.seq;
+    }
+
+    /** STATE (키프레임) */
+    void writeFull(ByteBuffer out) {
+        out.put(WireFormat.OP_STATE)
+                .putInt(seq)
+                .putShort(score1)
+                .putShort(score2)
+                .putLong(gameStartTime)
+                .put(flags1).putFloat(x1).putFloat(y1).putInt(seq1)
+                .put(flags2).putFloat(x2).putFloat(y2).putInt(seq2);
+    }
+
+    /** STATE_DELTA: base 대비 바뀐 필드만 */
+    void writeDelta(ByteBuffer out, WireSnapshot base) {
+        int mask = 0;
+        if (score1 != base.score1) mask |= D_SCORE1;
+        if (score2 != base.score2) mask |= D_SCORE2;
+        if (gameStartTime != base.gameStartTime) mask |= D_START;
+        if (flags1 != base.flags1) mask |= D_P1_FLAGS;
+        if (x1 != base.x1) mask |= D_P1_X;
+        if (y1 != base.y1) mask |= D_P1_Y;
+        if (seq1 != base.seq1) mask |= D_P1_SEQ;
+        if (flags2 != base.flags2) mask |= D_P2_FLAGS;
+        if (x2 != base.x2) mask |= D_P2_X;
+        if (y2 != base.y2) mask |= D_P2_Y;
+        if (seq2 != base.seq2) mask |= D_P2_SEQ;
+
+        out.put(WireFormat.OP_STATE_DELTA).putInt(seq).putInt(base.seq).putShort((short) mask);
+        if ((mask & D_SCORE1) != 0) out.putShort(score1);
+        if ((mask & D_SCORE2) != 0) out.putShort(score2);
+        if ((mask & D_START) != 0) out.putLong(gameStartTime);
+        if ((mask & D_P1_FLAGS) != 0) out.put(flags1);
+        if ((mask & D_P1_X) != 0) out.putFloat(x1);
+        if ((mask & D_P1_Y) != 0) out.putFloat(y1);
+        if ((mask & D_P1_SEQ) != 0) out.putInt(seq1);
+        if ((mask & D_P2_FLAGS) != 0) out.put(flags2);
+        if ((mask & D_P2_X) != 0) out.putFloat(x2);
+        if ((mask & D_P2_Y) != 0) out.putFloat(y2);
+        if ((mask & D_P2_SEQ) != 0) out.putInt(seq2);
+    }
+}
@@ -0,0 +1,55 @@
+package org.epee.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft_6455;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 바이너리 입력 프레임: 길이가 op 의 정해진 크기와 다르거나 좌표가 NaN/무한대면 읽지 않고 버리고
+ * decodeErrors 로만 셈 (스택 트레이스로 stderr 를 채우지 않음).
+ */
+class BinaryDecodeTest {
+
+    private final GameServer server = new GameServer(0, GameServer.DEFAULT_TICK_RATE, 1);
+    private final WebSocket conn = new WebSocketImpl(server, new Draft_6455());
+
+    private static ByteBuffer move(float x, float y) {
+        ByteBuffer b = ByteBuffer.allocate(WireFormat.MOVE_SIZE);
+        b.put(WireFormat.OP_MOVE).putInt(1).putInt(0).putFloat(x).putFloat(y).put((byte) 0);
+        return b.flip();
+    }
+
+    @Test
+    void malformedFramesAreCountedWithoutAStackTrace() {
+        PrintStream err = System.err;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(captured, true));
+        try {
+            server.onMessage(conn, ByteBuffer.wrap(new byte[] { WireFormat.OP_MOVE, 0, 0, 0, 1 })); // 잘림
+            server.onMessage(conn, ByteBuffer.allocate(WireFormat.ATTACK_SIZE + 1).put(0, WireFormat.OP_ATTACK)); // 덧붙임
+            server.onMessage(conn, ByteBuffer.allocate(0));
+            server.onMessage(conn, ByteBuffer.wrap(new byte[] { 0x7f, 0, 0, 0, 0 })); // 모르는 op
+        } finally {
+            System.setErr(err);
+        }
+        assertEquals(4, server.getMetrics().getDecodeErrors());
+        assertEquals("", captured.toString());
+    }
+
+    @Test
+    void nonFiniteCoordinatesAreRejected() {
+        server.onMessage(conn, move(Float.NaN, 400));
+        server.onMessage(conn, move(100, Float.POSITIVE_INFINITY));
+        assertEquals(2, server.getMetrics().getDecodeErrors());
+
+        server.onMessage(conn, move(100, 400)); // 정상 프레임은 안 셈
+        assertEquals(2, server.getMetrics().getDecodeErrors());
+    }
+}
@@ -0,0 +1,154 @@
+package org.epee.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.epee.common.FencingRules;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 시간 규칙 (공격 윈도우 / 리스폰 락 / 득점 디바운스 / 되감기 상한) 을 ManualClock 으로 경계 ±1ns 까지 돌려봄.
+ * 틱은 20ms 간격으로 simulate 만 부름 (전송 없음), 실제 시간과 무관하게 항상 같은 결과.
+ */
+class GameRulesClockTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long TICK = 20 * MS;
+
+    private static final double NEAR = 368; // p1 (300, 오른쪽 봄) 칼끝이 닿는 거리
+    private static final double FAR = 600;
+
+    private final ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(10), 0);
+
+    private static GameServer.RoomState seatedRoom() {
+        GameServer.RoomState r = new GameServer.RoomState("clock");
+        r.p1.occupy(null, "a");
+        r.p2.occupy(null, "b");
+        return r;
+    }
+
+    private void tick(GameServer.RoomState r) {
+        clock.advance(TICK);
+        GameServer.simulate(r, clock.nanos());
+    }
+
+    @Test
+    void attackWindowIncludesItsLastNanosecondAndNothingAfter() {
+        GameServer.RoomState r = seatedRoom(); // 스폰 거리라 안 닿음
+        long start = clock.nanos();
+        GameServer.applyAttack(r, r.p1, 1, start);
+
+        while (clock.nanos() - start < FencingRules.ATTACK_WINDOW_NANOS) tick(r);
+        assertEquals(start + FencingRules.ATTACK_WINDOW_NANOS, clock.nanos());
+        assertTrue(r.p1.attacking);
+
+        r.dirty = false;
+        clock.advance(1);
+        GameServer.simulate(r, clock.nanos());
+        assertFalse(r.p1.attacking);
+        assertTrue(r.dirty); // 내려간 것도 스냅샷으로 알림
+
+        // 윈도우가 끝난 공격은 상대가 다가와도 안 닿음
+        r.p1.x = 300;
+        r.p2.x = NEAR;
+        tick(r);
+        tick(r);
+        assertEquals(0, r.score1 + r.score2);
+    }
+
+    @Test
+    void respawnLockDropsInputUntilItExpires() {
+        GameServer.RoomState r = seatedRoom();
+        GameServer.onScore(r, true, clock.nanos());
+
+        clock.advance(FencingRules.RESPAWN_LOCK_NANOS - 1);
+        GameServer.applyMove(r, r.p1, 1, 150, FencingRules.SPAWN_Y, true, false, clock.nanos());
+        GameServer.applyAttack(r, r.p1, 2, clock.nanos());
+        assertEquals(FencingRules.P1_SPAWN_X, r.p1.x);
+        assertEquals(FencingRules.NO_ATTACK, r.p1.attackStart);
+
+        clock.advance(1);
+        GameServer.applyMove(r, r.p1, 3, 150, FencingRules.SPAWN_Y, true, false, clock.nanos());
+        assertEquals(150, r.p1.x);
+        GameServer.applyAttack(r, r.p1, 4, clock.nanos());
+        assertEquals(clock.nanos(), r.p1.attackStart);
+    }
+
+    @Test
+    void scoreDebounceIgnoresASecondTouchUntilItExpires() {
+        GameServer.RoomState r = seatedRoom();
+        GameServer.onScore(r, true, clock.nanos());
+        long first = clock.nanos();
+
+        clock.advance(FencingRules.SCORE_DEBOUNCE_NANOS - 1);
+        GameServer.onScore(r, false, clock.nanos());
+        assertEquals(0, r.score2);
+        assertEquals(first, r.lastScoreTime);
+
+        clock.advance(1);
+        GameServer.onScore(r, false, clock.nanos());
+        assertEquals(1, r.score2);
+        assertEquals(clock.nanos(), r.lastScoreTime);
+        assertEquals(FencingRules.respawnLockUntil(clock.nanos()), r.respawnLockUntil);
+    }
+
+    /** 시계가 0 부터 시작해도 (SystemClock 과 같은 원점) 첫 250ms 안의 득점이 디바운스에 막히지 않음 */
+    @Test
+    void touchBeforeTheFirstDebounceWindowEndsScores() {
+        ManualClock origin = new ManualClock(0, 0);
+        GameServer.RoomState r = new GameServer.RoomState("origin");
+        GameServer.seat(r, null, "a", origin.nanos(), origin.wallMillis());
+        GameServer.seat(r, null, "b", origin.nanos(), origin.wallMillis());
+        GameServer.applyMove(r, r.p1, 1, 300, FencingRules.SPAWN_Y, true, false, origin.nanos());
+        GameServer.applyMove(r, r.p2, 1, NEAR, FencingRules.SPAWN_Y, false, false, origin.nanos());
+        GameServer.applyAttack(r, r.p1, 2, origin.nanos());
+
+        while (r.score1 == 0 && origin.nanos() < FencingRules.ATTACK_WINDOW_NANOS) {
+            origin.advance(TICK);
+            GameServer.simulate(r, origin.nanos());
+        }
+        assertEquals(1, r.score1);
+        assertTrue(r.lastScoreTime < FencingRules.SCORE_DEBOUNCE_NANOS, "scored at " + r.lastScoreTime);
+    }
+
+    /**
+     * p2 는 먼 곳 -> (400ms 부터 120ms 동안) 닿는 거리 -> 다시 먼 곳. 600ms 에 p1 이 찌름.
+     * 칼끝이 닿는 동안 (공격 시작 + 26.67 ~ 173.33ms) 을 250ms 되감으면 p2 가 가까이 있던 구간이 보임.
+     * 되감기가 상한 없이 RTT + 보간 지연 (1100ms) 이면 위치 기록 밖이라 가장 오래된 (먼) 위치, 안 되감으면 지금 (먼) 위치.
+     */
+    @Test
+    void rewindIsCappedAtMaxRewind() {
+        assertEquals(1, scoreWithRtt(1000));
+        assertEquals(0, scoreWithRtt(0));
+    }
+
+    private int scoreWithRtt(double rttMs) {
+        GameServer.RoomState r = seatedRoom();
+        r.p1.x = 300;
+        r.p1.rttMs = rttMs;
+        long t0 = clock.nanos();
+
+        while (clock.nanos() - t0 < 600 * MS) {
+            long t = clock.nanos() + TICK - t0;
+            r.p2.x = t >= 400 * MS && t <= 520 * MS ? NEAR : FAR;
+            tick(r);
+        }
+        if (rttMs > 0) assertEquals(GameServer.MAX_REWIND_NANOS, GameServer.rewindNanos(r.p1));
+
+        long attack = clock.nanos();
+        GameServer.applyAttack(r, r.p1, 1, attack);
+        while (clock.nanos() - attack <= FencingRules.ATTACK_WINDOW_NANOS && r.score1 == 0) tick(r);
+
+        if (r.score1 > 0) {
+            // 닿은 시각은 되감은 시점에 p2 가 가까워지기 시작한 때 (380ms -> 400ms 보간 구간) 이후, 칼끝 최대 전
+            long seen = r.lastScoreTime - GameServer.MAX_REWIND_NANOS - t0;
+            assertTrue(seen > 380 * MS && seen < attack - t0 - GameServer.MAX_REWIND_NANOS + FencingRules.BLADE_PEAK_NANOS,
+                    "seen at " + seen);
+        }
+        clock.advance(FencingRules.SCORE_DEBOUNCE_NANOS);
+        return r.score1;
+    }
+}
@@ -0,0 +1,88 @@
+package org.epee.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.epee.common.FencingRules;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 한 틱 구간 안에서 둘 다 닿으면 먼저 닿은 쪽이 득점 (그 시각으로), 정확히 같은 시각일 때만 최근 입력자 우선.
+ * 둘은 68 떨어져서 서로 마주 봄 -> 칼끝이 48 을 넘는 순간 (공격 시작 + 26.67ms) 닿음, RTT 0 이라 되감기 없음.
+ */
+class HitPriorityTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long T0 = TimeUnit.SECONDS.toNanos(10);
+
+    private static GameServer.RoomState facingRoom() {
+        return facingRoom(368);
+    }
+
+    private static GameServer.RoomState facingRoom(double p2x) {
+        GameServer.RoomState r = new GameServer.RoomState("priority");
+        r.p1.occupy(null, "a");
+        r.p2.occupy(null, "b");
+        r.p1.x = 300;
+        r.p2.x = p2x;
+        GameServer.simulate(r, T0);
+        return r;
+    }
+
+    @Test
+    void earlierContactWinsOverMoreRecentInput() {
+        GameServer.RoomState r = facingRoom();
+        GameServer.applyAttack(r, r.p1, 1, T0 + 5 * MS);
+        GameServer.applyAttack(r, r.p2, 1, T0 + 10 * MS); // p2 가 더 최근 입력 (예전 규칙이면 p2 우선)
+
+        GameServer.simulate(r, T0 + 100 * MS); // 틱 간격이 넓어서 둘 다 이 구간 안에서 닿음
+
+        assertEquals(1, r.score1);
+        assertEquals(0, r.score2);
+        assertContactTime(T0 + 5 * MS, r.lastScoreTime); // 틱 시각이 아니라 닿은 시각
+        assertEquals(FencingRules.respawnLockUntil(r.lastScoreTime), r.respawnLockUntil);
+    }
+
+    @Test
+    void exactTieFallsBackToMostRecentInput() {
+        GameServer.RoomState r = facingRoom();
+        GameServer.applyAttack(r, r.p1, 1, T0 + 5 * MS);
+        GameServer.applyAttack(r, r.p2, 1, T0 + 5 * MS);
+        r.p2.lastInput = T0 + 8 * MS; // 같은 순간 찔렀지만 p2 입력이 더 최근
+
+        GameServer.simulate(r, T0 + 100 * MS);
+
+        assertEquals(0, r.score1);
+        assertEquals(1, r.score2);
+        assertContactTime(T0 + 5 * MS, r.lastScoreTime);
+    }
+
+    @Test
+    void contactTimeIsAQueryAndTheTickAdvancesBothWindows() {
+        GameServer.RoomState r = facingRoom(500); // 안 닿는 거리
+        GameServer.applyAttack(r, r.p1, 1, T0 + 5 * MS);
+        GameServer.applyAttack(r, r.p2, 1, T0 + 5 * MS);
+
+        // 몇 번을 물어봐도 판정 구간은 그대로
+        long now = T0 + 50 * MS;
+        r.positions.record(now, r.p1, r.p2);
+        assertEquals(FencingRules.NO_CONTACT, GameServer.contactTime(r, r.p1, r.p2, now));
+        assertEquals(FencingRules.NO_CONTACT, GameServer.contactTime(r, r.p2, r.p1, now));
+        assertEquals(FencingRules.NO_ATTACK, r.p1.hitCheckedTo);
+        assertEquals(FencingRules.NO_ATTACK, r.p2.hitCheckedTo);
+
+        // 틱은 둘 다 판정한 뒤에 둘 다 옮김
+        GameServer.simulate(r, T0 + 100 * MS);
+        assertEquals(0, r.score1 + r.score2);
+        assertEquals(T0 + 100 * MS, r.p1.hitCheckedTo);
+        assertEquals(T0 + 100 * MS, r.p2.hitCheckedTo);
+    }
+
+    // 공격 시작 후 칼끝이 48 (= 68 - 허용치 20) 을 넘는 순간: 8/30 x 100ms (조각 나눔에 따라 반올림 1ns 차이 허용)
+    private static void assertContactTime(long attackStart, long actual) {
+        long expected = attackStart + Math.round(8.0 / 30.0 * FencingRules.BLADE_PEAK_NANOS);
+        assertTrue(Math.abs(actual - expected) <= 1, "contact at " + actual + ", expected ~" + expected);
+    }
+}
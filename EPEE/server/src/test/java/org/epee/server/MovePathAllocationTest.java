@@ -0,0 +1,115 @@
+package org.epee.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft_6455;
+import org.junit.jupiter.api.Test;
+
+/**
+ * move 경로의 정상 상태 할당량을 ThreadMXBean 의 스레드별 누적 할당량으로 재고, 예산을 넘으면 실패.
+ * 1) 레인 부분 (applyMove + tick: 판정 + bin1 스냅샷 전송) 은 0 B (PlayerSlot 재사용이 깨지면 바로 걸림).
+ * 2) 소켓부터 전체 (bin1 프레임 디코딩 -> enqueue -> 레인 inbox 비우기 -> tick) 를 한 스레드에서 돌리면
+ *    move 1건당 InputCommand 1개 + inbox (ConcurrentLinkedQueue) 노드 1개만 남음 -> 그만큼만 허용.
+ */
+class MovePathAllocationTest {
+
+    private static final int WARMUP = 50_000;
+    private static final int MEASURED = 20_000;
+
+    // 레인 부분: move 1건당 0 B 가 목표, 측정 자체의 잡음 (MXBean 호출 등) 만 허용
+    private static final long BUDGET_BYTES = 1024;
+
+    // 전체 경로: InputCommand (압축 oop 기준 64 B) + 큐 노드 (24 B) = move 1건당 88 B, 그 위로는 잡음만
+    private static final long COMMAND_BYTES = 88;
+    private static final long END_TO_END_BUDGET_BYTES = COMMAND_BYTES * MEASURED + BUDGET_BYTES;
+
+    @Test
+    void steadyStateMovesDoNotAllocate() {
+        GameServer server = new GameServer(0, GameServer.DEFAULT_TICK_RATE, 1) {
+            @Override
+            public void broadcast(String text, Collection<WebSocket> clients) {}
+
+            @Override
+            public void broadcast(ByteBuffer bytes, Collection<WebSocket> clients) {}
+        };
+        SnapshotFanOut fanOut = new SnapshotFanOut(server);
+
+        // 프록시 소켓은 hashCode 마다 박싱하므로 실제 구현 객체를 씀 (전송은 위에서 버림)
+        GameServer.RoomState r = new GameServer.RoomState("alloc");
+        WebSocket a = new WebSocketImpl(server, new Draft_6455());
+        WebSocket b = new WebSocketImpl(server, new Draft_6455());
+        r.p1.occupy(a, "alice");
+        r.p2.occupy(b, "bob");
+        r.members.add(a);
+        r.members.add(b);
+        server.binaryWire.add(a);
+        server.binaryWire.add(b);
+
+        long[] now = { TimeUnit.SECONDS.toNanos(1) };
+        int[] seq = { 0 };
+        Runnable move = () -> {
+            now[0] += TimeUnit.MILLISECONDS.toNanos(16);
+            seq[0]++;
+            GameServer.applyMove(r, r.p1, seq[0], 100 + (seq[0] & 127), 400, true, false, now[0]);
+            server.tick(r, now[0], fanOut);
+        };
+
+        assertWithinBudget(move, BUDGET_BYTES);
+    }
+
+    @Test
+    void decodeEnqueueAndDrainAllocateOnlyTheCommand() {
+        ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(1), 0);
+        GameServer server = new GameServer(0, GameServer.DEFAULT_TICK_RATE, 1, ThreadMode.PLATFORM, clock) {
+            @Override
+            public void broadcast(String text, Collection<WebSocket> clients) {}
+
+            @Override
+            public void broadcast(ByteBuffer bytes, Collection<WebSocket> clients) {}
+        };
+
+        // 서버는 start 하지 않음: 레인 스레드 대신 이 스레드가 runLanesOnce 로 inbox 를 비우고 틱
+        WebSocket a = new WebSocketImpl(server, new Draft_6455());
+        WebSocket b = new WebSocketImpl(server, new Draft_6455());
+        server.binaryWire.add(a);
+        server.binaryWire.add(b);
+        server.onMessage(a, "{\"type\":\"join\",\"room\":\"alloc\",\"nickname\":\"alice\"}");
+        server.onMessage(b, "{\"type\":\"join\",\"room\":\"alloc\",\"nickname\":\"bob\"}");
+        server.runLanesOnce(clock.nanos());
+
+        ByteBuffer frame = ByteBuffer.allocate(WireFormat.MOVE_SIZE);
+        int[] seq = { 0 };
+        Runnable move = () -> {
+            clock.advanceMillis(16);
+            seq[0]++;
+            frame.clear();
+            frame.put(WireFormat.OP_MOVE).putInt(seq[0]).putInt(0).putFloat(100 + (seq[0] & 127)).putFloat(400)
+                    .put((byte) WireFormat.F_FACING_RIGHT).flip();
+            server.onMessage(a, frame);
+            server.runLanesOnce(clock.nanos());
+        };
+
+        assertWithinBudget(move, END_TO_END_BUDGET_BYTES);
+        assertEquals(0, server.getMetrics().getDecodeErrors());
+    }
+
+    private static void assertWithinBudget(Runnable move, long budget) {
+        for (int i = 0; i < WARMUP; i++) move.run();
+
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = mx.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED; i++) move.run();
+        long allocated = mx.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(allocated <= budget,
+                allocated + " B over " + MEASURED + " moves (" + (double) allocated / MEASURED + " B/move), budget " + budget + " B");
+    }
+}
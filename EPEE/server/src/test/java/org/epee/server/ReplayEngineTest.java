@@ -0,0 +1,160 @@
+package org.epee.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.epee.common.FencingRules;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * 레인이 하는 순서 그대로 (입력 기록 + 적용 -> TICK 기록 + simulate -> 바뀌었으면 STATE 기록) 짧은 경기를 ManualClock 으로
+ * 녹화하고 ReplayEngine 으로 다시 돌림. 같은 규칙이면 어긋남 0, 녹화 쪽 규칙 하나 (디바운스) 를 바꾸면 어긋남이 잡힘.
+ */
+class ReplayEngineTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long TICK = 20 * MS;
+
+    private static final double NEAR = 368; // p1 (300, 오른쪽 봄) 칼끝이 닿는 거리
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sameRulesReplayWithoutMismatch() throws IOException {
+        Match m = record(true);
+        assertEquals(2, m.r.score1 + m.r.score2);
+
+        ReplayEngine.Result res = replay();
+        assertEquals(0, res.mismatches(), res.firstMismatch());
+        assertNull(res.firstMismatch());
+        assertEquals(2, res.touches());
+        assertEquals(1, res.rooms());
+        assertEquals(0, res.gaps());
+        assertEquals(m.snapshots, res.snapshots());
+    }
+
+    @Test
+    void recordingWithoutDebounceIsAMismatch() throws IOException {
+        Match m = record(false);
+        assertEquals(3, m.r.score1 + m.r.score2); // 디바운스 안에 닿은 두 번째 찌르기도 점수
+
+        ReplayEngine.Result res = replay();
+        assertTrue(res.mismatches() > 0);
+        assertNotNull(res.firstMismatch());
+        assertTrue(res.firstMismatch().contains("score 1:0 recorded 2:0"), res.firstMismatch());
+        // 득점 수는 엔진 규칙이 실제로 올린 횟수 (점수를 기록 쪽에 맞춘 것과 무관): 두 번째 찌르기는
+        // 디바운스가 끝난 뒤에도 칼끝이 닿아 있어 그때 득점 -> 1 + 1 + 1
+        assertEquals(3, res.touches(), res.toString());
+    }
+
+    /**
+     * p1 이 닿는 거리에서 찌름 (1점) -> 리스폰 락이 풀리자마자 다시 붙어서 찌름: 디바운스 (250ms) 안에 닿으므로
+     * 규칙대로면 점수 없음 -> 디바운스가 지난 뒤 다시 찌름 (1점).
+     */
+    private Match record(boolean debounce) throws IOException {
+        Match m = new Match(dir);
+        m.tick();
+        m.closeIn();
+        m.attack(m.r.p1);
+        m.ticksUntilScored(1);
+
+        m.ticksUntil(m.r.respawnLockUntil);
+        m.closeIn();
+        if (!debounce) m.r.lastScoreTime -= FencingRules.SCORE_DEBOUNCE_NANOS; // 녹화 서버 규칙만 바꿈
+        m.attack(m.r.p1);
+        m.ticksUntil(m.clock.nanos() + FencingRules.ATTACK_WINDOW_NANOS);
+
+        m.ticksUntil(m.r.lastScoreTime + FencingRules.SCORE_DEBOUNCE_NANOS);
+        m.closeIn();
+        m.attack(m.r.p1);
+        m.ticksUntilScored(debounce ? 2 : 3);
+
+        m.log.close();
+        return m;
+    }
+
+    private ReplayEngine.Result replay() throws IOException {
+        List<Path> segments = ReplayReader.logs(dir).get("lane-0");
+        assertNotNull(segments);
+        ReplayEngine.Result res = ReplayEngine.run("lane-0", segments);
+        assertTrue(res.touches() >= 0);
+        return res;
+    }
+
+    /** 레인 1개, 방 1개: GameServer 가 기록하는 것과 같은 레코드를 같은 순서로 */
+    private static final class Match {
+        final ManualClock clock = new ManualClock(TimeUnit.SECONDS.toNanos(10), 0);
+        final ReplayLog log;
+        final GameServer.RoomState r = new GameServer.RoomState("duel");
+        final WireSnapshot snap = new WireSnapshot();
+        final int room;
+        int seq1 = 0;
+        int seq2 = 0;
+        int snapshots = 0;
+
+        Match(Path dir) {
+            log = ReplayLog.open(dir, "lane-0", ReplayLog.MAX_RECORD * 64, Runnable::run, new ServerMetrics());
+            assertNotNull(log);
+            room = log.openRoom(r.name, clock.nanos());
+            seat("a");
+            seat("b");
+        }
+
+        void seat(String nick) {
+            PlayerSlot p = GameServer.seat(r, null, nick, clock.nanos(), clock.wallMillis());
+            assertNotNull(p);
+            log.join(room, clock.nanos(), p);
+        }
+
+        // 두 사람 다 닿는 거리로 (p1 은 오른쪽, p2 는 왼쪽 봄)
+        void closeIn() {
+            move(r.p1, 300, true);
+            move(r.p2, NEAR, false);
+        }
+
+        void move(PlayerSlot p, double x, boolean facingRight) {
+            int seq = p == r.p1 ? ++seq1 : ++seq2;
+            log.move(room, clock.nanos(), p, seq, x, FencingRules.SPAWN_Y, facingRight, false);
+            GameServer.applyMove(r, p, seq, x, FencingRules.SPAWN_Y, facingRight, false, clock.nanos());
+        }
+
+        void attack(PlayerSlot p) {
+            int seq = p == r.p1 ? ++seq1 : ++seq2;
+            log.attack(room, clock.nanos(), p, seq);
+            GameServer.applyAttack(r, p, seq, clock.nanos());
+        }
+
+        void tick() {
+            clock.advance(TICK);
+            long now = clock.nanos();
+            log.tick(now);
+            GameServer.simulate(r, now);
+            if (r.dirty) {
+                r.dirty = false;
+                snap.capture(++snapshots, r.score1, r.score2, r.gameStartTime, r.p1, r.p2);
+                log.state(room, r.p1.rttMs, r.p2.rttMs, snap);
+            }
+        }
+
+        void ticksUntil(long at) {
+            while (clock.nanos() < at) tick();
+        }
+
+        void ticksUntilScored(int total) {
+            long limit = clock.nanos() + FencingRules.ATTACK_WINDOW_NANOS;
+            while (r.score1 + r.score2 < total) {
+                assertTrue(clock.nanos() <= limit, "no touch");
+                tick();
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.epee.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * 세그먼트를 넘겨 가며 쓴 로그를 ReplayReader 로 다시 읽음. 부수 작업은 그 자리에서 실행 (Runnable::run) 하거나,
+ * 큐에 쌓아 두고 테스트가 원할 때만 돌림 (레인이 세그먼트를 기다리면 그대로 멈추므로 @Timeout 으로 잡힘).
+ */
+class ReplayLogTest {
+
+    private static final int SEGMENT = ReplayLog.MAX_RECORD * 8;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void longUtf8NameIsCutOnACharacterBoundary() throws IOException {
+        String nick = "펜싱".repeat(100); // 한글 1자 = 3 바이트, 600 바이트
+        GameServer.RoomState r = new GameServer.RoomState("utf8");
+        r.p1.occupy(null, nick);
+
+        ReplayLog log = ReplayLog.open(dir, "lane-0", SEGMENT, Runnable::run, new ServerMetrics());
+        assertNotNull(log);
+        int room = log.openRoom("utf8", 1);
+        log.join(room, 2, r.p1);
+        log.close();
+
+        ReplayReader in = reader();
+        assertTrue(in.next());
+        assertEquals(ReplayLog.OPEN, in.type);
+        assertTrue(in.next());
+        assertEquals(ReplayLog.JOIN, in.type);
+        assertEquals(nick.substring(0, 85), in.text); // 255 / 3 = 85 자, 깨진 글자 (U+FFFD) 없음
+        assertEquals(255, in.text.getBytes(StandardCharsets.UTF_8).length);
+        assertFalse(in.next());
+    }
+
+    @Test
+    void segmentsKeepTheirLengthAndTheReaderStopsAtEnd() throws IOException {
+        ReplayLog log = ReplayLog.open(dir, "lane-0", SEGMENT, Runnable::run, new ServerMetrics());
+        assertNotNull(log);
+        int ticks = SEGMENT; // TICK 1건 = 9 바이트 -> 세그먼트 여러 개
+        for (int i = 1; i <= ticks; i++) log.tick(i);
+        log.close();
+
+        List<Path> files = ReplayReader.logs(dir).get("lane-0");
+        assertTrue(files.size() >= 3, files.toString());
+        for (Path f : files) assertEquals(SEGMENT, Files.size(f), f.toString()); // 자르지 않음
+
+        ReplayReader in = reader();
+        long expected = 1;
+        while (in.next()) {
+            assertEquals(ReplayLog.TICK, in.type);
+            assertEquals(expected++, in.at);
+        }
+        assertEquals(ticks + 1, expected); // 마지막 (미리 만든, 헤더뿐인) 세그먼트는 그냥 건너뜀
+    }
+
+    @Test
+    @Timeout(10)
+    void laneNeverWaitsForASegmentAndOverflowBecomesAGap() throws IOException {
+        ArrayDeque<Runnable> sideWork = new ArrayDeque<>();
+        ServerMetrics metrics = new ServerMetrics();
+        ReplayLog log = ReplayLog.open(dir, "lane-0", SEGMENT, sideWork::add, metrics);
+
+        // 첫 세그먼트가 아직 없음: 임시 버퍼에 쌓다가 차면 버림
+        int before = 400;
+        for (int i = 1; i <= before; i++) log.tick(i);
+        long dropped = metrics.replayDropped.sum();
+        assertTrue(dropped > 0 && dropped < before, "dropped " + dropped);
+        assertEquals(1, metrics.replayStalls.sum());
+
+        runAll(sideWork); // 이제 세그먼트 준비됨
+        for (int i = before + 1; i <= before + 10; i++) log.tick(i);
+        log.close();
+        runAll(sideWork);
+
+        ReplayReader in = reader();
+        long kept = before - dropped;
+        for (long i = 1; i <= kept; i++) {
+            assertTrue(in.next());
+            assertEquals(ReplayLog.TICK, in.type);
+            assertEquals(i, in.at);
+        }
+        assertTrue(in.next());
+        assertEquals(ReplayLog.GAP, in.type);
+        assertEquals(dropped, in.dropped);
+        for (long i = before + 1; i <= before + 10; i++) {
+            assertTrue(in.next());
+            assertEquals(i, in.at);
+        }
+        assertFalse(in.next());
+    }
+
+    @Test
+    @Timeout(10)
+    void closeBeforeTheFirstSegmentIsReadyStillWritesTheRecords() throws IOException {
+        ArrayDeque<Runnable> sideWork = new ArrayDeque<>();
+        ReplayLog log = ReplayLog.open(dir, "lane-0", SEGMENT, sideWork::add, new ServerMetrics());
+        log.tick(1);
+        log.tick(2);
+        log.close(); // 레인은 안 기다림, 마무리는 부수 작업으로
+        log.tick(3); // 닫은 뒤 기록은 무시
+        assertTrue(Files.notExists(dir.resolve("lane-0-00000.epr")));
+
+        runAll(sideWork);
+        ReplayReader in = reader();
+        assertTrue(in.next());
+        assertEquals(1, in.at);
+        assertTrue(in.next());
+        assertEquals(2, in.at);
+        assertFalse(in.next());
+    }
+
+    private static void runAll(ArrayDeque<Runnable> tasks) {
+        while (!tasks.isEmpty()) tasks.poll().run();
+    }
+
+    private ReplayReader reader() throws IOException {
+        Map<String, List<Path>> logs = ReplayReader.logs(dir);
+        assertEquals(1, logs.size());
+        return new ReplayReader(logs.values().iterator().next());
+    }
+}
@@ -0,0 +1,71 @@
+package org.epee.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft_6455;
+import org.junit.jupiter.api.Test;
+
+/**
+ * JSON 스냅샷 직렬화가 실패하면 그 스냅샷은 JSON 수신자만 건너뛰고 (null 을 보내지 않음),
+ * 바이너리 수신자는 그대로 받고, 실패는 serializeErrors 로 셈.
+ */
+class SnapshotSerializeErrorTest {
+
+    @Test
+    void failedJsonSkipsOnlyTheJsonGroup() {
+        List<String> texts = new ArrayList<>();
+        List<Collection<WebSocket>> binaryGroups = new ArrayList<>();
+        GameServer server = new GameServer(0, GameServer.DEFAULT_TICK_RATE, 1) {
+            @Override
+            String stateJson(RoomState r) throws IOException {
+                throw new IOException("boom");
+            }
+
+            @Override
+            public void broadcast(String text, Collection<WebSocket> clients) {
+                texts.add(text);
+            }
+
+            @Override
+            public void broadcast(ByteBuffer bytes, Collection<WebSocket> clients) {
+                binaryGroups.add(List.copyOf(clients));
+            }
+        };
+        SnapshotFanOut fanOut = new SnapshotFanOut(server);
+
+        GameServer.RoomState r = new GameServer.RoomState("serr");
+        WebSocket json = new WebSocketImpl(server, new Draft_6455());
+        WebSocket binary = new WebSocketImpl(server, new Draft_6455());
+        r.p1.occupy(json, "json");
+        r.p2.occupy(binary, "bin");
+        r.members.add(json);
+        r.members.add(binary);
+        server.binaryWire.add(binary);
+        r.rosterChanged = false;
+
+        server.broadcastState(r, fanOut);
+
+        assertEquals(List.of(), texts);
+        assertEquals(List.of(List.of(binary)), binaryGroups);
+        assertEquals(1, server.getMetrics().getSerializeErrors());
+        assertEquals(1, server.getMetrics().getSnapshotsSent());
+
+        // 실패한 JSON 수신자가 다음 스냅샷으로 새지 않음
+        texts.clear();
+        binaryGroups.clear();
+        server.binaryWire.add(json);
+        server.broadcastState(r, fanOut);
+
+        assertEquals(List.of(), texts);
+        assertEquals(2, binaryGroups.stream().mapToInt(Collection::size).sum());
+        assertEquals(1, server.getMetrics().getSerializeErrors());
+    }
+}